@@ -0,0 +1,42 @@
+package hello.springtx.bench;
+
+import hello.springtx.SpringtxApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트. application.properties 의 TRACE/DEBUG 로그가 측정을 망치지 않게 끈다.
+ */
+final class BenchContext {
+
+    private BenchContext() {
+    }
+
+    static ConfigurableApplicationContext start(Class<?>... extraSources) {
+        return start(new String[0], extraSources);
+    }
+
+    static ConfigurableApplicationContext start(String[] extraArgs, Class<?>... extraSources) {
+        Class<?>[] sources = new Class<?>[extraSources.length + 1];
+        sources[0] = SpringtxApplication.class;
+        System.arraycopy(extraSources, 0, sources, 1, extraSources.length);
+
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.transaction.interceptor=WARN",
+                "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+                "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                "--logging.level.org.hibernate.resource.transaction=WARN",
+                "--logging.level.org.hibernate.SQL=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+
+        return new SpringApplicationBuilder(sources)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
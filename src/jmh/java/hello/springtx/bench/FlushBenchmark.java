@@ -0,0 +1,87 @@
+package hello.springtx.bench;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.PayStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 영속성 컨텍스트에 주문 size 개가 올라가 있고 그 중 1% 만 바꿨을 때 flush 비용.
+ * 바이트코드 향상(dirty tracking) 켠 빌드와 끈 빌드(-PhibernateEnhance=false)의 결과를 비교한다.
+ * 스냅샷/할당 차이는 ./gradlew jmh -PjmhProfilers=gc 처럼 gc 프로파일러를 붙여서 본다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlushBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+    EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start(new String[]{"--spring.jpa.properties.hibernate.jdbc.batch_size=1000"});
+        emf = context.getBean(EntityManagerFactory.class);
+
+        EntityManager loader = emf.createEntityManager();
+        loader.getTransaction().begin();
+        loader.createQuery("delete from Order o where o.username = 'flush'").executeUpdate();
+        for (int i = 0; i < size; i++) {
+            Order order = new Order();
+            order.setUsername("flush");
+            order.setPayStatus(PayStatus.PENDING);
+            loader.persist(order);
+            if (i % 1000 == 999) {
+                loader.flush();
+                loader.clear();
+            }
+        }
+        loader.getTransaction().commit();
+        loader.close();
+    }
+
+    //영속성 컨텍스트를 채우고 1% 만 변경. 측정은 flush 만
+    @Setup(Level.Invocation)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Order> orders = em.createQuery("select o from Order o where o.username = 'flush'", Order.class).getResultList();
+        for (int i = 0; i < orders.size(); i += 100) {
+            orders.get(i).setPayStatus(PayStatus.COMPLETED);
+        }
+    }
+
+    @Benchmark
+    public void flush() {
+        em.flush();
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+}
@@ -0,0 +1,74 @@
+package hello.springtx.bench;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import hello.springtx.order.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔고부족(대기 주문 커밋) 경로: 체크 예외로 알리는 order vs OrderResult 를 돌려주는 orderResult.
+ * 아래 두 개는 예외 생성 비용만 따로 본다. (스택 트레이스 채우기 vs stackless)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderResultBenchmark {
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start();
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object pendingByException() {
+        Order order = pendingOrder();
+        try {
+            orderService.order(order);
+            return order;
+        } catch (NotEnoughMoneyException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public OrderResult pendingByResult() {
+        return orderService.orderResult(pendingOrder());
+    }
+
+    @Benchmark
+    public Exception exceptionWithStackTrace() {
+        return new Exception("잔고가 부족합니다");
+    }
+
+    @Benchmark
+    public Exception stacklessException() {
+        return new NotEnoughMoneyException("잔고가 부족합니다");
+    }
+
+    private static Order pendingOrder() {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        return order;
+    }
+}
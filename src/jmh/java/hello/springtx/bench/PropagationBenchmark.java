@@ -0,0 +1,76 @@
+package hello.springtx.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 외부 트랜잭션 안에서 내부 트랜잭션을 열고 닫는 비용.
+ * REQUIRED(참여) vs REQUIRES_NEW(suspend/resume + 커넥션 하나 더) vs NESTED(savepoint)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropagationBenchmark {
+
+    ConfigurableApplicationContext context;
+    DataSourceTransactionManager txManager;
+
+    DefaultTransactionDefinition outer = new DefaultTransactionDefinition();
+    DefaultTransactionDefinition required = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED);
+    DefaultTransactionDefinition requiresNew = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    DefaultTransactionDefinition nested = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NESTED);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start();
+        txManager = new DataSourceTransactionManager(context.getBean(DataSource.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void outerOnly() {
+        TransactionStatus outerStatus = txManager.getTransaction(outer);
+        txManager.commit(outerStatus);
+    }
+
+    @Benchmark
+    public void requiredJoin() {
+        run(required);
+    }
+
+    @Benchmark
+    public void requiresNew() {
+        run(requiresNew);
+    }
+
+    @Benchmark
+    public void nestedSavepoint() {
+        run(nested);
+    }
+
+    private void run(TransactionDefinition innerDefinition) {
+        TransactionStatus outerStatus = txManager.getTransaction(outer);
+        TransactionStatus innerStatus = txManager.getTransaction(innerDefinition);
+        txManager.commit(innerStatus);
+        txManager.commit(outerStatus);
+    }
+}
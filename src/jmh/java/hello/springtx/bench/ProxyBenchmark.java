@@ -0,0 +1,106 @@
+package hello.springtx.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Transactional 프록시(인터셉터 체인 + 속성 조회) vs TransactionTemplate 직접 호출
+ *
+ * ./gradlew jmh 와 ./gradlew jmh -PtxMode=aspectj 를 각각 돌려 results-proxy.json / results-aspectj.json 을 비교한다.
+ * 위빙 모드에서는 annotationProxy 가 프록시 없이 위빙된 호출이 되고, selfInvocation 에도 트랜잭션이 걸린다.
+ * transactionTemplate, noTransaction 기준선은 @Transactional 이 없는 PlainTarget 을 쓴다. (위빙 모드에서 TxTarget 은 new 로 만들어도 aspect 가 돈다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProxyBenchmark {
+
+    ConfigurableApplicationContext context;
+    TxTarget proxied;
+    PlainTarget plain;
+    TransactionTemplate txTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start(ProxyBenchmarkConfig.class);
+        proxied = context.getBean(TxTarget.class);
+        plain = new PlainTarget();
+        txTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        //두 모드 모두 기준선에는 aspect 가 끼면 안 된다
+        if (plain.work()) {
+            throw new IllegalStateException("noTransaction 기준선에 트랜잭션이 걸렸습니다.");
+        }
+        if (!proxied.work()) {
+            throw new IllegalStateException("annotationProxy 에 트랜잭션이 걸리지 않았습니다.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean annotationProxy() {
+        return proxied.work();
+    }
+
+    //프록시 모드: 내부 호출이라 트랜잭션 없음(false), 위빙 모드: 트랜잭션 적용(true)
+    @Benchmark
+    public boolean selfInvocation() {
+        return proxied.outer();
+    }
+
+    @Benchmark
+    public Boolean transactionTemplate() {
+        return txTemplate.execute(status -> plain.work());
+    }
+
+    @Benchmark
+    public void noTransaction(Blackhole blackhole) {
+        blackhole.consume(plain.work());
+    }
+
+    @Configuration
+    static class ProxyBenchmarkConfig {
+        @Bean
+        TxTarget txTarget() {
+            return new TxTarget();
+        }
+    }
+
+    static class TxTarget {
+        @Transactional
+        public boolean work() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        public boolean outer() {
+            return work();
+        }
+    }
+
+    static class PlainTarget {
+        public boolean work() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package hello.springtx.bench;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.reactive.ReactiveOrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 BATCH 건을 concurrency 만큼 동시에 처리하는 시간. (주문 한 건당 평균으로 환산)
+ * blocking : JPA OrderService + 스레드 concurrency 개
+ * reactive : R2DBC ReactiveOrderService + flatMap(concurrency)
+ * 둘 다 잔고부족 주문을 10% 섞는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReactiveVsBlockingBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({"8", "64"})
+    int concurrency;
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+    ReactiveOrderService reactiveOrderService;
+    ExecutorService threads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start(new String[]{"--springtx.reactive.enabled=true",
+                "--spring.datasource.hikari.maximum-pool-size=" + concurrency,
+                "--springtx.reactive.pool-size=" + concurrency});
+        orderService = context.getBean(OrderService.class);
+        reactiveOrderService = context.getBean(ReactiveOrderService.class);
+        threads = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        threads.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void blocking() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            Order order = order(i);
+            tasks.add(() -> {
+                try {
+                    orderService.order(order);
+                } catch (NotEnoughMoneyException e) {
+                    //대기 주문으로 커밋됨
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : threads.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void reactive() {
+        Flux.range(0, BATCH)
+                .flatMap(i -> reactiveOrderService.order(order(i))
+                        .onErrorResume(NotEnoughMoneyException.class, e -> Mono.empty()), concurrency)
+                .blockLast();
+    }
+
+    private static Order order(int i) {
+        Order order = new Order();
+        order.setUsername(i % 10 == 0 ? "잔고부족" : "bench_" + i);
+        return order;
+    }
+}
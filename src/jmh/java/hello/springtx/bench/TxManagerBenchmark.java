@@ -0,0 +1,71 @@
+package hello.springtx.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BasicTxTest 의 getTransaction -> commit 한 사이클 비용. DataSourceTransactionManager vs JpaTransactionManager
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TxManagerBenchmark {
+
+    ConfigurableApplicationContext context;
+    PlatformTransactionManager dataSourceTxManager;
+    PlatformTransactionManager jpaTxManager;
+    DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start();
+        dataSourceTxManager = new DataSourceTransactionManager(context.getBean(DataSource.class));
+        jpaTxManager = new JpaTransactionManager(context.getBean(EntityManagerFactory.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void dataSourceCommit() {
+        TransactionStatus status = dataSourceTxManager.getTransaction(definition);
+        dataSourceTxManager.commit(status);
+    }
+
+    @Benchmark
+    public void jpaCommit() {
+        TransactionStatus status = jpaTxManager.getTransaction(definition);
+        jpaTxManager.commit(status);
+    }
+
+    @Benchmark
+    public void dataSourceRollback() {
+        TransactionStatus status = dataSourceTxManager.getTransaction(definition);
+        dataSourceTxManager.rollback(status);
+    }
+
+    @Benchmark
+    public void jpaRollback() {
+        TransactionStatus status = jpaTxManager.getTransaction(definition);
+        jpaTxManager.rollback(status);
+    }
+}
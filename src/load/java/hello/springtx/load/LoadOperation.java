@@ -0,0 +1,93 @@
+package hello.springtx.load;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 부하 대상 호출. injectFailure 면 강의에서 쓰던 실패 경로(로그예외, 예외, 잔고부족)로 보낸다.
+ * 반환값/예외로 결과를 OK, EXPECTED(주입한 실패가 기대대로 발생), ERROR(예상 못한 예외)로 나눈다.
+ */
+enum LoadOperation {
+
+    JOIN_V1("joinV1") {
+        @Override
+        Outcome call(Targets targets, long seq, boolean injectFailure) {
+            //로그예외: REQUIRES_NEW 로그 저장 실패가 바깥까지 전파되어 회원가입도 실패해야 한다
+            String username = injectFailure ? "로그예외_" + seq : "load_v1_" + seq;
+            try {
+                targets.memberService.joinV1(username);
+                return injectFailure ? Outcome.ERROR : Outcome.OK;
+            } catch (RuntimeException e) {
+                return injectFailure ? Outcome.EXPECTED : Outcome.ERROR;
+            }
+        }
+    },
+    JOIN_V2("joinV2") {
+        @Override
+        Outcome call(Targets targets, long seq, boolean injectFailure) {
+            //로그예외: 로그만 실패하고 회원가입은 정상 흐름
+            String username = injectFailure ? "로그예외_" + seq : "load_v2_" + seq;
+            try {
+                targets.memberService.joinV2(username);
+                return injectFailure ? Outcome.EXPECTED : Outcome.OK;
+            } catch (RuntimeException e) {
+                return Outcome.ERROR;
+            }
+        }
+    },
+    ORDER("order") {
+        @Override
+        Outcome call(Targets targets, long seq, boolean injectFailure) {
+            boolean system = injectFailure && ThreadLocalRandom.current().nextBoolean();
+            Order order = new Order();
+            order.setUsername(!injectFailure ? "정상" : system ? "예외" : "잔고부족");
+            try {
+                targets.orderService.order(order);
+                return injectFailure ? Outcome.ERROR : Outcome.OK;
+            } catch (NotEnoughMoneyException e) {
+                return injectFailure && !system ? Outcome.EXPECTED : Outcome.ERROR;
+            } catch (RuntimeException e) {
+                return system ? Outcome.EXPECTED : Outcome.ERROR;
+            }
+        }
+    };
+
+    private final String key;
+
+    LoadOperation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    abstract Outcome call(Targets targets, long seq, boolean injectFailure);
+
+    static LoadOperation of(String key) {
+        for (LoadOperation op : values()) {
+            if (op.key.equalsIgnoreCase(key.trim())) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("unknown operation: " + key);
+    }
+
+    enum Outcome {
+        OK, EXPECTED, ERROR
+    }
+
+    static class Targets {
+        private final MemberService memberService;
+        private final OrderService orderService;
+
+        Targets(MemberService memberService, OrderService orderService) {
+            this.memberService = memberService;
+            this.orderService = orderService;
+        }
+    }
+}
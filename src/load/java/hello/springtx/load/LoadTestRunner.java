@@ -0,0 +1,269 @@
+package hello.springtx.load;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * joinV1, joinV2, order 를 여러 스레드로 정해진 시간 동안 호출하고 지연(HdrHistogram), 처리량, 커넥션 풀 대기, 에러율을 리포트로 남긴다.
+ *
+ * ./gradlew loadTest -Pload.concurrency=32 -Pload.duration=60s -Pload.mix=joinV1=40,joinV2=30,order=30 -Pload.failure-rate=0.1
+ * 결과: build/reports/load/report.txt (load.report 로 변경)
+ */
+public class LoadTestRunner {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load.concurrency", Runtime.getRuntime().availableProcessors() * 2);
+        Duration duration = duration(System.getProperty("load.duration", "30s"));
+        Duration warmup = duration(System.getProperty("load.warmup", "5s"));
+        double failureRate = Double.parseDouble(System.getProperty("load.failure-rate", "0.1"));
+        Map<LoadOperation, Integer> mix = mix(System.getProperty("load.mix", "joinV1=40,joinV2=30,order=30"));
+        Path report = Paths.get(System.getProperty("load.report", "build/reports/load/report.txt"));
+
+        try (ConfigurableApplicationContext context = start()) {
+            LoadOperation.Targets targets = new LoadOperation.Targets(
+                    context.getBean(MemberService.class), context.getBean(OrderService.class));
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            LoadOperation[] wheel = wheel(mix);
+            AtomicLong seq = new AtomicLong();
+            List<Worker> workers = new ArrayList<>(concurrency);
+            long warmupEnd = System.nanoTime() + warmup.toNanos();
+            long deadline = warmupEnd + duration.toNanos();
+
+            PoolWait poolBefore = new PoolWait();
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(targets, wheel, seq, failureRate, warmupEnd, deadline, done);
+                workers.add(worker);
+                Thread thread = new Thread(worker, "load-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            //워밍업이 끝나는 시점의 풀 대기 누적치를 기준점으로 잡는다
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+            poolBefore.read(registry);
+            done.await();
+            PoolWait poolAfter = new PoolWait();
+            poolAfter.read(registry);
+
+            String text = report(concurrency, duration, warmup, failureRate, mix, workers, poolBefore, poolAfter);
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            Files.write(report, text.getBytes(StandardCharsets.UTF_8));
+            System.out.println(text);
+            System.out.println("report: " + report.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.hibernate.resource.transaction=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+    }
+
+    private static class Worker implements Runnable {
+
+        private final LoadOperation.Targets targets;
+        private final LoadOperation[] wheel;
+        private final AtomicLong seq;
+        private final double failureRate;
+        private final long warmupEnd;
+        private final long deadline;
+        private final CountDownLatch done;
+
+        private final Map<LoadOperation, Histogram> latency = new EnumMap<>(LoadOperation.class);
+        private final Map<LoadOperation, long[]> outcomes = new EnumMap<>(LoadOperation.class);
+
+        Worker(LoadOperation.Targets targets, LoadOperation[] wheel, AtomicLong seq, double failureRate,
+               long warmupEnd, long deadline, CountDownLatch done) {
+            this.targets = targets;
+            this.wheel = wheel;
+            this.seq = seq;
+            this.failureRate = failureRate;
+            this.warmupEnd = warmupEnd;
+            this.deadline = deadline;
+            this.done = done;
+            for (LoadOperation op : LoadOperation.values()) {
+                latency.put(op, new Histogram(HIGHEST_TRACKABLE_MICROS, 3));
+                outcomes.put(op, new long[LoadOperation.Outcome.values().length]);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long start;
+                while ((start = System.nanoTime()) < deadline) {
+                    LoadOperation op = wheel[random.nextInt(wheel.length)];
+                    boolean injectFailure = random.nextDouble() < failureRate;
+                    LoadOperation.Outcome outcome = op.call(targets, seq.incrementAndGet(), injectFailure);
+                    if (start >= warmupEnd) {
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        latency.get(op).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                        outcomes.get(op)[outcome.ordinal()]++;
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    //hikaricp.connections.acquire (커넥션을 얻기까지 기다린 시간) 누적치
+    private static class PoolWait {
+        private long count;
+        private double totalMillis;
+        private double maxMillis;
+
+        void read(MeterRegistry registry) {
+            Collection<Timer> timers = registry.find("hikaricp.connections.acquire").timers();
+            for (Timer timer : timers) {
+                count += timer.count();
+                totalMillis += timer.totalTime(TimeUnit.MILLISECONDS);
+                maxMillis = Math.max(maxMillis, timer.max(TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+
+    private static String report(int concurrency, Duration duration, Duration warmup, double failureRate,
+                                 Map<LoadOperation, Integer> mix, List<Worker> workers,
+                                 PoolWait before, PoolWait after) {
+        double seconds = duration.toNanos() / 1_000_000_000.0;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+        out.printf("springtx load test %s%n", LocalDateTime.now());
+        out.printf("concurrency=%d duration=%s warmup=%s failure-rate=%.3f mix=%s%n%n",
+                concurrency, duration, warmup, failureRate, mix);
+        out.printf("%-8s %9s %9s %9s %7s %7s %10s %9s %9s %9s %9s %9s%n",
+                "op", "count", "ok", "expected", "errors", "err%", "tput/s", "p50ms", "p90ms", "p99ms", "p99.9ms", "maxms");
+
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<LoadOperation, Histogram> merged = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation op : mix.keySet()) {
+            Histogram histogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+            long[] counts = new long[LoadOperation.Outcome.values().length];
+            for (Worker worker : workers) {
+                histogram.add(worker.latency.get(op));
+                long[] workerCounts = worker.outcomes.get(op);
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += workerCounts[i];
+                }
+            }
+            merged.put(op, histogram);
+            all.add(histogram);
+            row(out, op.key(), histogram, counts, seconds);
+        }
+        long[] totals = new long[LoadOperation.Outcome.values().length];
+        for (Worker worker : workers) {
+            for (long[] counts : worker.outcomes.values()) {
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+        }
+        row(out, "total", all, totals, seconds);
+
+        long waits = after.count - before.count;
+        out.printf("%npool wait (hikaricp.connections.acquire): acquires=%d mean=%.3fms max=%.3fms%n",
+                waits, waits == 0 ? 0.0 : (after.totalMillis - before.totalMillis) / waits, after.maxMillis);
+
+        for (Map.Entry<LoadOperation, Histogram> entry : merged.entrySet()) {
+            out.printf("%n--- %s latency distribution (ms) ---%n", entry.getKey().key());
+            entry.getValue().outputPercentileDistribution(out, 1000.0);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void row(PrintStream out, String name, Histogram histogram, long[] counts, double seconds) {
+        long total = histogram.getTotalCount();
+        long errors = counts[LoadOperation.Outcome.ERROR.ordinal()];
+        out.printf("%-8s %9d %9d %9d %7d %7.2f %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                name, total,
+                counts[LoadOperation.Outcome.OK.ordinal()],
+                counts[LoadOperation.Outcome.EXPECTED.ordinal()],
+                errors,
+                total == 0 ? 0.0 : errors * 100.0 / total,
+                total / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    //joinV1=40,joinV2=30,order=30
+    private static Map<LoadOperation, Integer> mix(String value) {
+        Map<LoadOperation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.split("=");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(LoadOperation.of(kv[0]), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix is empty: " + value);
+        }
+        return mix;
+    }
+
+    //가중치만큼 칸을 채운 배열. 매 호출마다 난수 하나로 연산을 고른다
+    private static LoadOperation[] wheel(Map<LoadOperation, Integer> mix) {
+        List<LoadOperation> slots = new ArrayList<>();
+        mix.forEach((op, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(op);
+            }
+        });
+        return slots.toArray(new LoadOperation[0]);
+    }
+
+    private static Duration duration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+}
@@ -1,5 +1,6 @@
 package hello.springtx;
 
+import hello.springtx.startup.StartupRecording;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class SpringtxApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(SpringtxApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringtxApplication.class);
+		application.setApplicationStartup(StartupRecording.applicationStartup());
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,36 @@
+package hello.springtx.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @Transactional(readOnly = true) 트랜잭션은 REPLICA, 나머지는 PRIMARY 로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 동기화 매니저에 없으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 쿼리 시점에 커넥션을 고르게 해야 한다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+
+    public ReadWriteRoutingDataSource(MeterRegistry registry) {
+        this.primaryCounter = registry.counter("springtx.datasource.route", "target", "primary");
+        this.replicaCounter = registry.counter("springtx.datasource.route", "target", "replica");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            replicaCounter.increment();
+            return Target.REPLICA;
+        }
+        primaryCounter.increment();
+        return Target.PRIMARY;
+    }
+}
@@ -0,0 +1,91 @@
+package hello.springtx.order;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * idempotencyKey 로 재시도된 주문을 걸러낸다.
+ * 트랜잭션을 열기 전에 최근 처리한 키 캐시를 먼저 보고, 있으면 DB 에 가지 않고 처음 결과를 그대로 돌려준다.
+ * (OrderService.order 는 @Transactional 프록시라 같은 클래스 안에서는 트랜잭션 전에 끼어들 수 없어서 분리했다.)
+ *
+ * 캐시에서 밀려났거나 다른 인스턴스에서 처리된 키는 유니크 제약 위반으로 걸리고, DB 에서 원래 주문을 찾아 돌려준다.
+ * 시스템 예외로 롤백된 주문은 결과를 남기지 않으므로 재시도하면 다시 처리한다.
+ */
+@Slf4j
+@Service
+public class IdempotentOrderService {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final Cache<String, Outcome> recent;
+
+    public IdempotentOrderService(OrderService orderService, OrderRepository orderRepository,
+                                  @Value("${springtx.order.idempotency.max-size:100000}") long maxSize,
+                                  @Value("${springtx.order.idempotency.ttl:10m}") Duration ttl) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public void order(Order order) throws NotEnoughMoneyException {
+        String key = order.getIdempotencyKey();
+        if (key == null) {
+            orderService.order(order);
+            return;
+        }
+
+        Outcome cached = recent.getIfPresent(key);
+        if (cached != null) {
+            log.info("중복 주문 요청, 캐시된 결과 반환 key={}", key);
+            replay(order, cached);
+            return;
+        }
+
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            //잔고부족도 주문은 커밋된다. 결과로 기억해 둔다.
+            recent.put(key, new Outcome(order.getId(), order.getPayStatus()));
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            Optional<Order> original = orderRepository.findByIdempotencyKey(key);
+            if (original.isEmpty()) {
+                throw e;
+            }
+            log.info("중복 주문 요청, 기존 주문 반환 key={}", key);
+            Outcome outcome = new Outcome(original.get().getId(), original.get().getPayStatus());
+            recent.put(key, outcome);
+            replay(order, outcome);
+            return;
+        }
+        recent.put(key, new Outcome(order.getId(), order.getPayStatus()));
+    }
+
+    private void replay(Order order, Outcome outcome) throws NotEnoughMoneyException {
+        order.setId(outcome.orderId);
+        order.setPayStatus(outcome.payStatus);
+        if (outcome.payStatus == PayStatus.PENDING) {
+            throw new NotEnoughMoneyException("잔고가 부족합니다");
+        }
+    }
+
+    private static class Outcome {
+        private final Long orderId;
+        private final PayStatus payStatus;
+
+        Outcome(Long orderId, PayStatus payStatus) {
+            this.orderId = orderId;
+            this.payStatus = payStatus;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package hello.springtx.order;
 
 public class NotEnoughMoneyException extends Exception {        //체크 예외
     public NotEnoughMoneyException(String message) {
-        super(message);
+        //비즈니스 예외라 스택 트레이스가 필요 없다. 잔고부족은 자주 일어나는 정상 흐름이라 fillInStackTrace 비용을 뺀다.
+        super(message, null, false, false);
     }
 }
@@ -1,16 +1,22 @@
 package hello.springtx.order;
 
 
+import hello.springtx.id.SnowflakeIdentifierGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "orders")     //데이터베이스 테이블은 orders라는 테이블과 매핑해서 사용할 것. 우린 지금 메모리DB를 쓸것이다.  JPA가 자동으로 테이블을 만드는 모드가 있다.
+@Table(name = "orders",
+        indexes = @Index(name = "idx_orders_pay_status_id", columnList = "payStatus, id"),   //대기 주문 keyset 조회용
+        uniqueConstraints = @UniqueConstraint(name = "uk_orders_idempotency_key", columnNames = "idempotencyKey"))     //데이터베이스 테이블은 orders라는 테이블과 매핑해서 사용할 것. 우린 지금 메모리DB를 쓸것이다.  JPA가 자동으로 테이블을 만드는 모드가 있다.
 @Getter
 @Setter
 public class Order {
@@ -18,11 +24,14 @@ public class Order {
     //JPA를 쓰자
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
     private Long id;
 
     private String username;        //정상 , 에외, 잔고부족
 
-    private String payStatus;       //대기, 완료,
+    private PayStatus payStatus;    //대기, 완료  (숫자 code 로 저장)
+
+    private String idempotencyKey;  //클라이언트가 재시도해도 같은 값. null 이면 중복 검사 안함
 
 }
@@ -1,6 +1,25 @@
 package hello.springtx.order;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    //(pay_status, id) 인덱스를 타는 keyset 페이징. offset 을 쓰지 않아 뒤 페이지로 가도 느려지지 않는다.
+    List<Order> findByPayStatusAndIdGreaterThanOrderByIdAsc(PayStatus payStatus, Long id, Pageable pageable);
+
+    long countByPayStatus(PayStatus payStatus);
+
+    /**
+     * lastId 다음부터 대기 주문 limit 개. 첫 페이지는 Long.MIN_VALUE, 다음 페이지는 직전 페이지 마지막 id.
+     */
+    default List<Order> findPendingAfter(long lastId, int limit) {
+        return findByPayStatusAndIdGreaterThanOrderByIdAsc(PayStatus.PENDING, lastId, PageRequest.of(0, limit));
+    }
 }
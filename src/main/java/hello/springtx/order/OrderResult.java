@@ -0,0 +1,62 @@
+package hello.springtx.order;
+
+/**
+ * OrderService.orderResult 의 결과. 예외 대신 값으로 결제 결과를 돌려준다.
+ *
+ * - COMPLETED : 정상 승인, 커밋
+ * - PENDING_INSUFFICIENT_FUNDS : 잔고부족, 대기 상태로 커밋 (NotEnoughMoneyException 과 같은 의미)
+ * - FAILED : 시스템 예외 상황, 롤백. 주문은 저장되지 않는다.
+ */
+public final class OrderResult {
+
+    public enum Status {
+        COMPLETED, PENDING_INSUFFICIENT_FUNDS, FAILED
+    }
+
+    private final Status status;
+    private final Order order;
+    private final String failureMessage;
+
+    private OrderResult(Status status, Order order, String failureMessage) {
+        this.status = status;
+        this.order = order;
+        this.failureMessage = failureMessage;
+    }
+
+    static OrderResult completed(Order order) {
+        return new OrderResult(Status.COMPLETED, order, null);
+    }
+
+    static OrderResult pending(Order order) {
+        return new OrderResult(Status.PENDING_INSUFFICIENT_FUNDS, order, null);
+    }
+
+    static OrderResult failed(Order order, String failureMessage) {
+        return new OrderResult(Status.FAILED, order, failureMessage);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * 주문이 DB 에 커밋되었나. (COMPLETED, PENDING_INSUFFICIENT_FUNDS)
+     */
+    public boolean isCommitted() {
+        return status != Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderResult{status=" + status + ", orderId=" + order.getId()
+                + (failureMessage == null ? "" : ", failure=" + failureMessage) + "}";
+    }
+}
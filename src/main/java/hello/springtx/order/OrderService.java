@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 @Slf4j
 @Service
@@ -14,22 +15,24 @@ public class OrderService {
 
 
     //JPA는 트랜잭션 커밋 시점에 Order 데이터를 DB에 반영한다.
+    //결제 상태를 먼저 정하고 저장한다. 저장한 뒤에 상태를 바꾸면 커밋 때 INSERT 다음에 UPDATE 가 한 번 더 나간다.
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("Order 호출");
 
-        orderRepository.save(order);
-
         log.info("결제 프로세스 진입");
 
         if (order.getUsername().equals("예외")) {
             //여기선 그냥 단순하게 하기위해 사용자 이름이 예외면 시스템 예외 발생
+            //id 는 받아 두지만 롤백되므로 flush 되지 않는다. (INSERT 없음)
+            orderRepository.save(order);
             log.info("시스템 예외 발생");
             throw new RuntimeException("시스템 예외");
         } else if (order.getUsername().equals("잔고부족")) {
             //이러면 비지니스 예외.
             log.info("잔고 부족 비즈니스 예외 발생");
-            order.setPayStatus("대기");
+            order.setPayStatus(PayStatus.PENDING);
+            orderRepository.save(order);
             throw new NotEnoughMoneyException("잔고가 부족합니다");
             //우리 잔고부족이면 예외가 터지는데 하지만, 커밋을 하길 기대
             //이거 체크 예외기 때문에 던져라
@@ -37,10 +40,37 @@ public class OrderService {
         }else{
             //정상 승인
             log.info("정상 승인");
-            order.setPayStatus("완료");
+            order.setPayStatus(PayStatus.COMPLETED);
+            orderRepository.save(order);
 
         }
 
         log.info("결제 프로세스 완료");
     }
+
+    /**
+     * order 와 같은 규칙인데 예외 대신 OrderResult 로 결과를 돌려주고, 커밋/롤백도 예외 규칙이 아니라 여기서 직접 정한다.
+     * 시스템 예외 상황은 rollback-only 로 표시하고 FAILED 를 반환한다.
+     * (바깥 트랜잭션에 참여한 상태에서 FAILED 가 나오면 바깥 커밋은 UnexpectedRollbackException 이 된다)
+     * DB 오류처럼 진짜 예외는 그대로 던진다.
+     */
+    @Transactional
+    public OrderResult orderResult(Order order) {
+        if (order.getUsername().equals("예외")) {
+            orderRepository.save(order);
+            log.info("시스템 예외 상황, 롤백");
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return OrderResult.failed(order, "시스템 예외");
+        } else if (order.getUsername().equals("잔고부족")) {
+            log.info("잔고 부족, 대기 상태로 커밋");
+            order.setPayStatus(PayStatus.PENDING);
+            orderRepository.save(order);
+            return OrderResult.pending(order);
+        }
+
+        log.info("정상 승인");
+        order.setPayStatus(PayStatus.COMPLETED);
+        orderRepository.save(order);
+        return OrderResult.completed(order);
+    }
 }
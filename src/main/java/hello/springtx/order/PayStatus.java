@@ -0,0 +1,36 @@
+package hello.springtx.order;
+
+/**
+ * 결제 상태. DB 에는 문자열 대신 code(숫자)로 저장한다. (PayStatusConverter)
+ * code 는 한 번 정하면 바꾸지 않는다. ordinal 은 순서가 바뀌면 깨지므로 쓰지 않는다.
+ */
+public enum PayStatus {
+
+    PENDING(1, "대기"),
+    COMPLETED(2, "완료");
+
+    private final int code;
+    private final String description;
+
+    PayStatus(int code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public static PayStatus fromCode(int code) {
+        for (PayStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 결제 상태 code=" + code);
+    }
+}
@@ -0,0 +1,18 @@
+package hello.springtx.order;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+@Converter(autoApply = true)
+public class PayStatusConverter implements AttributeConverter<PayStatus, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(PayStatus attribute) {
+        return attribute == null ? null : attribute.getCode();
+    }
+
+    @Override
+    public PayStatus convertToEntityAttribute(Integer dbData) {
+        return dbData == null ? null : PayStatus.fromCode(dbData);
+    }
+}
@@ -0,0 +1,233 @@
+package hello.springtx.order;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 잔고부족으로 대기(PENDING) 상태로 커밋된 주문을 다시 결제 시도한다.
+ *
+ * - 대기 주문을 id 순으로 건수가 같은 partitions 개 구간으로 나누고, 구간마다 워커 스레드 하나가 처리한다.
+ *   (Snowflake id 는 아래 12bit 가 ms 내 순번이라 거의 0 이다. id 나머지로 나누면 한 파티션에 몰린다)
+ * - 워커는 커서용 커넥션과 청크 커밋용 커넥션을 같이 잡으므로 partitions 는 커넥션 풀 크기의 절반으로 제한한다.
+ * - 각 워커는 StatelessSession 의 forward-only 커서로 읽는다. 영속성 컨텍스트에 쌓이지 않아 몇백만 건이어도 메모리가 일정하다.
+ * - chunkSize 건마다 상태 변경과 체크포인트를 한 트랜잭션으로 커밋한다. 작업이 죽으면 체크포인트 다음부터 재개하고,
+ *   모든 파티션이 끝나면 체크포인트를 지운다.
+ */
+@Slf4j
+@Component
+public class PendingOrderReconciler {
+
+    private final SessionFactory sessionFactory;
+    private final EntityManager em;
+    private final TransactionTemplate txTemplate;
+    private final int partitions;
+    private final int chunkSize;
+    private final int fetchSize;
+
+    public PendingOrderReconciler(EntityManagerFactory emf, EntityManager em, PlatformTransactionManager txManager,
+                                  DataSource dataSource,
+                                  @Value("${springtx.order.reconcile.partitions:4}") int partitions,
+                                  @Value("${springtx.order.reconcile.chunk-size:500}") int chunkSize,
+                                  @Value("${springtx.order.reconcile.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.em = em;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.partitions = cappedPartitions(partitions, dataSource);
+        this.chunkSize = chunkSize;
+        this.fetchSize = fetchSize;
+    }
+
+    private static int cappedPartitions(int partitions, DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int max = Math.max(1, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() / 2);
+                if (partitions > max) {
+                    log.warn("정산 파티션 {}개는 커넥션 풀에 비해 많아서 {}개로 줄입니다. (워커당 커넥션 2개)", partitions, max);
+                    return max;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("커넥션 풀 크기를 알 수 없습니다. partitions={}", partitions);
+        }
+        return partitions;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public ReconcileReport reconcile(ReconcilePolicy policy) {
+        long start = System.nanoTime();
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        List<ReconcileCheckpoint> ranges = loadOrPlanRanges();
+
+        ExecutorService workers = Executors.newFixedThreadPool(partitions);
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                ReconcileCheckpoint range = ranges.get(p);
+                futures.add(workers.submit(() -> reconcilePartition(range, policy, scanned, completed)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("대기 주문 정산이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            //체크포인트는 남겨 두고 다음 실행에서 이어서 처리
+            throw new IllegalStateException("대기 주문 정산 실패", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        clearCheckpoints();
+        ReconcileReport report = new ReconcileReport(scanned.get(), completed.get(),
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("대기 주문 정산 완료 {} ({} 건/초)", report, String.format("%.1f", report.getThroughputPerSecond()));
+        return report;
+    }
+
+    /**
+     * 이 partitions 로 하던 작업의 체크포인트가 있으면 그 구간을 그대로 이어서 쓴다.
+     * 없으면 대기 주문을 id 순으로 건수가 같게 나눈 구간을 체크포인트로 저장한다. 마지막 구간은 위쪽이 열려 있다.
+     */
+    private List<ReconcileCheckpoint> loadOrPlanRanges() {
+        return txTemplate.execute(status -> {
+            String prefix = partitions + "-%";
+            List<ReconcileCheckpoint> saved = em.createQuery(
+                            "select c from ReconcileCheckpoint c where c.partitionKey like :prefix", ReconcileCheckpoint.class)
+                    .setParameter("prefix", prefix)
+                    .getResultList();
+            if (saved.size() == partitions) {
+                saved.sort(Comparator.comparingInt(ReconcileCheckpoint::partition));
+                return saved;
+            }
+            saved.forEach(em::remove);
+
+            long pending = em.createQuery("select count(o) from Order o where o.payStatus = :status", Long.class)
+                    .setParameter("status", PayStatus.PENDING)
+                    .getSingleResult();
+            long step = pending / partitions;
+            if (step > Integer.MAX_VALUE) {
+                throw new IllegalStateException("파티션 하나가 너무 큽니다. partitions 를 늘리세요. pending=" + pending);
+            }
+            List<ReconcileCheckpoint> ranges = new ArrayList<>(partitions);
+            long lower = Long.MIN_VALUE;
+            for (int p = 0; p < partitions; p++) {
+                long upper = p == partitions - 1 ? Long.MAX_VALUE : idAfter(lower, (int) step);
+                ReconcileCheckpoint range = new ReconcileCheckpoint(ReconcileCheckpoint.key(partitions, p), lower, upper);
+                em.persist(range);
+                ranges.add(range);
+                lower = upper;
+            }
+            return ranges;
+        });
+    }
+
+    //lower 다음부터 step 번째 대기 주문의 id. 직전 경계에서 (pay_status, id) 인덱스를 seek 해서 step 건만 읽으므로
+    //구간 계획 전체가 대기 주문 id 를 한 번 훑는 비용이다. (처음부터 OFFSET 으로 세면 파티션마다 다시 훑는다)
+    private long idAfter(long lower, int step) {
+        if (step == 0) {
+            return lower;
+        }
+        List<Long> ids = em.createQuery(
+                        "select o.id from Order o where o.payStatus = :status and o.id > :lower order by o.id", Long.class)
+                .setParameter("status", PayStatus.PENDING)
+                .setParameter("lower", lower)
+                .setFirstResult(step - 1)
+                .setMaxResults(1)
+                .getResultList();
+        return ids.isEmpty() ? lower : ids.get(0);
+    }
+
+    private void reconcilePartition(ReconcileCheckpoint range, ReconcilePolicy policy, AtomicLong scanned, AtomicLong completed) {
+        String key = range.getPartitionKey();
+        long from = range.getLastId();
+        long upper = range.getUpperId();
+
+        StatelessSession session = sessionFactory.openStatelessSession();
+        ScrollableResults cursor = null;
+        try {
+            cursor = session.createQuery(
+                            "select o from Order o where o.payStatus = :status and o.id > :from and o.id <= :upper" +
+                                    " order by o.id", Order.class)
+                    .setParameter("status", PayStatus.PENDING)
+                    .setParameter("from", from)
+                    .setParameter("upper", upper)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+
+            List<Long> completedIds = new ArrayList<>(chunkSize);
+            int inChunk = 0;
+            long lastId = from;
+            while (cursor.next()) {
+                Order order = (Order) cursor.get(0);
+                if (policy.retry(order) == PayStatus.COMPLETED) {
+                    completedIds.add(order.getId());
+                }
+                lastId = order.getId();
+                if (++inChunk == chunkSize) {
+                    commitChunk(key, lastId, upper, completedIds);
+                    scanned.addAndGet(inChunk);
+                    completed.addAndGet(completedIds.size());
+                    completedIds.clear();
+                    inChunk = 0;
+                }
+            }
+            if (inChunk > 0) {
+                commitChunk(key, lastId, upper, completedIds);
+                scanned.addAndGet(inChunk);
+                completed.addAndGet(completedIds.size());
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            session.close();
+        }
+    }
+
+    private void commitChunk(String key, long lastId, long upper, List<Long> completedIds) {
+        txTemplate.executeWithoutResult(status -> {
+            if (!completedIds.isEmpty()) {
+                em.createQuery("update Order o set o.payStatus = :completed where o.id in :ids and o.payStatus = :pending")
+                        .setParameter("completed", PayStatus.COMPLETED)
+                        .setParameter("pending", PayStatus.PENDING)
+                        .setParameter("ids", completedIds)
+                        .executeUpdate();
+            }
+            em.merge(new ReconcileCheckpoint(key, lastId, upper));
+        });
+    }
+
+    private void clearCheckpoints() {
+        txTemplate.executeWithoutResult(status ->
+                em.createQuery("delete from ReconcileCheckpoint c where c.partitionKey like :prefix")
+                        .setParameter("prefix", partitions + "-%")
+                        .executeUpdate());
+    }
+}
@@ -0,0 +1,42 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 대기 주문 정산 작업의 파티션별 구간과 진행 위치. 파티션은 (lastId, upperId] 구간을 처리한다.
+ * 작업이 중간에 죽으면 같은 구간을 lastId 다음부터 다시 시작한다.
+ */
+@Entity
+@Getter
+@Setter
+public class ReconcileCheckpoint {
+
+    @Id
+    private String partitionKey;    //"파티션수-파티션번호"
+
+    private Long lastId;
+
+    private Long upperId;
+
+    protected ReconcileCheckpoint() {
+
+    }
+
+    public ReconcileCheckpoint(String partitionKey, Long lastId, Long upperId) {
+        this.partitionKey = partitionKey;
+        this.lastId = lastId;
+        this.upperId = upperId;
+    }
+
+    static String key(int partitions, int partition) {
+        return partitions + "-" + partition;
+    }
+
+    int partition() {
+        return Integer.parseInt(partitionKey.substring(partitionKey.indexOf('-') + 1));
+    }
+}
@@ -0,0 +1,9 @@
+package hello.springtx.order;
+
+/**
+ * 대기 주문을 다시 결제 시도했을 때의 결과. PENDING 을 돌려주면 그대로 대기로 남는다.
+ */
+public interface ReconcilePolicy {
+
+    PayStatus retry(Order pendingOrder);
+}
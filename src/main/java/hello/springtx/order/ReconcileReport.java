@@ -0,0 +1,23 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class ReconcileReport {
+
+    private final long scanned;
+    private final long completed;
+    private final long elapsedMillis;
+
+    public ReconcileReport(long scanned, long completed, long elapsedMillis) {
+        this.scanned = scanned;
+        this.completed = completed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getThroughputPerSecond() {
+        return elapsedMillis == 0 ? scanned : scanned * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,115 @@
+package hello.springtx.order;
+
+import hello.springtx.support.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문을 동시에 받아서 처리한다. 같은 username 의 주문은 항상 같은 stripe(스레드 하나)로 가서 들어온 순서대로 처리되고,
+ * 다른 사용자는 stripe 수만큼 병렬로 처리된다. 같은 사용자 행에 대한 락 경합(row-lock convoy)이 생기지 않는다.
+ *
+ * stripe 마다 큐가 queueCapacity 로 제한되어 있어, 가득 차면 submit 하는 쪽이 offerTimeout 만큼 기다리고
+ * 그래도 자리가 없으면 RejectedExecutionException 으로 거절한다. (backpressure)
+ *
+ * stripe 스레드를 기동 때 만들어 두므로 springtx.order.executor.enabled=true 일 때만 등록한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "springtx.order.executor.enabled", havingValue = "true")
+public class StripedOrderExecutor {
+
+    private final OrderService orderService;
+    private final ThreadPoolExecutor[] stripes;
+    private final Timer[] latency;
+    private final long offerTimeoutNanos;
+
+    public StripedOrderExecutor(OrderService orderService, MeterRegistry registry,
+                                @Value("${springtx.order.executor.stripes:0}") int stripeCount,
+                                @Value("${springtx.order.executor.queue-capacity:1000}") int queueCapacity,
+                                @Value("${springtx.order.executor.offer-timeout:1s}") Duration offerTimeout) {
+        this.orderService = orderService;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+
+        int count = stripeCount > 0 ? stripeCount : Runtime.getRuntime().availableProcessors();
+        this.stripes = new ThreadPoolExecutor[count];
+        this.latency = new Timer[count];
+        for (int i = 0; i < count; i++) {
+            int stripe = i;
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue, r -> {
+                Thread thread = new Thread(r, "order-stripe-" + stripe);
+                thread.setDaemon(true);
+                return thread;
+            });
+            stripes[i].prestartAllCoreThreads();
+            Tags tags = Tags.of("stripe", String.valueOf(i));
+            latency[i] = Timer.builder("springtx.order.stripe.latency").tags(tags).publishPercentileHistogram().register(registry);
+            registry.gauge("springtx.order.stripe.queue", tags, queue, BlockingQueue::size);
+        }
+    }
+
+    /**
+     * 결과 future 는 주문이 커밋되면 주문으로 완료되고, 잔고부족이면 NotEnoughMoneyException 으로 실패한다. (이때도 주문은 커밋됨)
+     */
+    public CompletableFuture<Order> submit(Order order) {
+        int stripe = stripeOf(order.getUsername());
+        CompletableFuture<Order> result = new CompletableFuture<>();
+        long enqueued = System.nanoTime();
+
+        Runnable task = () -> {
+            try {
+                orderService.order(order);
+                result.complete(order);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                latency[stripe].record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+            }
+        };
+
+        //execute 는 큐가 차면 바로 거절하므로 큐에 직접 offer 해서 기다린다. (코어 스레드는 prestart 되어 있다)
+        ThreadPoolExecutor executor = stripes[stripe];
+        try {
+            if (executor.isShutdown() || !executor.getQueue().offer(task, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("주문 큐가 가득 찼습니다. stripe=" + stripe);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("주문 제출 중 인터럽트", e);
+        }
+        return result;
+    }
+
+    //String.hashCode 는 비슷한 username 끼리 한 stripe 에 몰릴 수 있어서 샤딩과 같은 해시를 쓴다.
+    int stripeOf(String username) {
+        return username == null ? 0 : Math.floorMod(Hashing.hash64(username), stripes.length);
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor executor : stripes) {
+            executor.shutdown();
+        }
+        for (ThreadPoolExecutor executor : stripes) {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package hello.springtx.order.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.order.Order;
+import hello.springtx.order.PayStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 샤드 하나. 자기 커넥션 풀과 트랜잭션 매니저를 가진다. 주문 하나는 항상 한 샤드 안에서만 쓰므로 분산 트랜잭션은 없다.
+ * 트랜잭션 매니저는 빈으로 등록하지 않는다. (JPA 트랜잭션 매니저와 @Transactional 에서 충돌)
+ */
+public class OrderShard {
+
+    private static final String COLUMNS = "id, username, pay_status, idempotency_key";
+
+    private static final RowMapper<Order> ORDER_MAPPER = (rs, rowNum) -> {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setUsername(rs.getString("username"));
+        int payStatus = rs.getInt("pay_status");
+        order.setPayStatus(rs.wasNull() ? null : PayStatus.fromCode(payStatus));
+        order.setIdempotencyKey(rs.getString("idempotency_key"));
+        return order;
+    };
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate tx;
+
+    OrderShard(int index, HikariDataSource dataSource) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public TransactionTemplate tx() {
+        return tx;
+    }
+
+    public void insert(Order order) {
+        jdbc.update("insert into orders (" + COLUMNS + ") values (?, ?, ?, ?)", args(order));
+    }
+
+    //리밸런싱 재실행 시 이미 복사된 행은 덮어쓴다
+    void upsert(Order order) {
+        jdbc.update("merge into orders (" + COLUMNS + ") key (id) values (?, ?, ?, ?)", args(order));
+    }
+
+    int deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return namedJdbc.update("delete from orders where id in (:ids)", new MapSqlParameterSource("ids", ids));
+    }
+
+    public Optional<Order> findById(long id) {
+        return jdbc.query("select " + COLUMNS + " from orders where id = ?", ORDER_MAPPER, id).stream().findFirst();
+    }
+
+    public List<Order> findByUsername(String username) {
+        return jdbc.query("select " + COLUMNS + " from orders where username = ? order by id", ORDER_MAPPER, username);
+    }
+
+    public List<Order> findByPayStatusAfter(PayStatus payStatus, long lastId, int limit) {
+        return jdbc.query("select " + COLUMNS + " from orders where pay_status = ? and id > ? order by id limit ?",
+                ORDER_MAPPER, payStatus.getCode(), lastId, limit);
+    }
+
+    public long countByPayStatus(PayStatus payStatus) {
+        Long count = jdbc.queryForObject("select count(*) from orders where pay_status = ?", Long.class, payStatus.getCode());
+        return count == null ? 0 : count;
+    }
+
+    public long count() {
+        Long count = jdbc.queryForObject("select count(*) from orders", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    //비어 있으면 Long.MIN_VALUE
+    long maxId() {
+        Long max = jdbc.queryForObject("select max(id) from orders", Long.class);
+        return max == null ? Long.MIN_VALUE : max;
+    }
+
+    List<Order> scanRange(long lastId, long maxId, int limit) {
+        return jdbc.query("select " + COLUMNS + " from orders where id > ? and id <= ? order by id limit ?",
+                ORDER_MAPPER, lastId, maxId, limit);
+    }
+
+    void close() {
+        dataSource.close();
+    }
+
+    private static Object[] args(Order order) {
+        return new Object[]{order.getId(), order.getUsername(),
+                order.getPayStatus() == null ? null : order.getPayStatus().getCode(), order.getIdempotencyKey()};
+    }
+}
@@ -0,0 +1,77 @@
+package hello.springtx.order.shard;
+
+import hello.springtx.order.Order;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 샤드 수를 바꾼 뒤 자기 샤드가 아닌 곳에 있는 주문을 옮긴다. (springtx.order.sharding.shards 를 늘리고 재기동 후 실행)
+ *
+ * 각 샤드를 id 순으로 batchSize 씩 훑어서, 옮길 주문을 대상 샤드에 먼저 커밋(upsert)하고 그 다음 원래 샤드에서 지운다.
+ * 중간에 멈춰도 다시 돌리면 된다. 복사만 되고 삭제 전인 동안에는 같은 주문이 두 샤드에 보일 수 있다. (findById 는 먼저 찾은 것)
+ *
+ * 옮기기 전에 샤드마다 max(id) 를 찍어 두고 그 안쪽만 훑는다. 뒤쪽 샤드로 옮겨 간 주문을 다시 읽어서 scanned 에
+ * 두 번 세지 않기 위해서다. (대상 샤드에 원래 있던 id 보다 작은 주문이 옮겨 오면 다시 읽힐 수는 있지만, 이미 제자리라 옮기지는 않는다)
+ */
+@Slf4j
+public class OrderShardRebalancer {
+
+    private final OrderShards shards;
+    private final int batchSize;
+
+    public OrderShardRebalancer(OrderShards shards, int batchSize) {
+        this.shards = shards;
+        this.batchSize = batchSize;
+    }
+
+    public RebalanceReport rebalance() {
+        long start = System.currentTimeMillis();
+        long scanned = 0;
+        long moved = 0;
+        Map<OrderShard, Long> maxIds = new HashMap<>();
+        for (OrderShard shard : shards.all()) {
+            maxIds.put(shard, shard.maxId());
+        }
+        for (OrderShard source : shards.all()) {
+            long maxId = maxIds.get(source);
+            long lastId = Long.MIN_VALUE;
+            List<Order> batch;
+            do {
+                batch = source.scanRange(lastId, maxId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+                scanned += batch.size();
+                moved += move(source, batch);
+            } while (batch.size() == batchSize);
+        }
+        RebalanceReport report = new RebalanceReport(shards.size(), scanned, moved, System.currentTimeMillis() - start);
+        log.info("order shard rebalance {}", report);
+        return report;
+    }
+
+    private int move(OrderShard source, List<Order> batch) {
+        Map<OrderShard, List<Order>> misplaced = batch.stream()
+                .filter(order -> shards.shardFor(order.getUsername()) != source)
+                .collect(Collectors.groupingBy(order -> shards.shardFor(order.getUsername())));
+
+        int moved = 0;
+        for (Map.Entry<OrderShard, List<Order>> entry : misplaced.entrySet()) {
+            OrderShard target = entry.getKey();
+            List<Order> orders = entry.getValue();
+            target.tx().executeWithoutResult(status -> orders.forEach(target::upsert));
+
+            List<Long> ids = new ArrayList<>(orders.size());
+            orders.forEach(order -> ids.add(order.getId()));
+            source.tx().executeWithoutResult(status -> source.deleteByIds(ids));
+            moved += orders.size();
+        }
+        return moved;
+    }
+}
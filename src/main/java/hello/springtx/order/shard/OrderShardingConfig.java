@@ -0,0 +1,39 @@
+package hello.springtx.order.shard;
+
+import hello.springtx.id.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * springtx.order.sharding.enabled=true 일 때 샤드된 주문 저장소를 띄운다. 기존 OrderService/orders 테이블은 그대로 둔다.
+ * 샤드 DataSource 들은 빈으로 등록하지 않는다. (등록하면 스프링 부트 기본 DataSource 자동 설정이 빠진다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.order.sharding.enabled", havingValue = "true")
+public class OrderShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public OrderShards orderShards(@Value("${springtx.order.sharding.url}") String urlTemplate,
+                                   @Value("${springtx.order.sharding.shards:4}") int shardCount,
+                                   @Value("${springtx.order.sharding.pool-size:10}") int poolSize,
+                                   @Value("${springtx.order.sharding.username:sa}") String username,
+                                   @Value("${springtx.order.sharding.password:}") String password,
+                                   MeterRegistry meterRegistry) {
+        return new OrderShards(urlTemplate, shardCount, poolSize, username, password, meterRegistry);
+    }
+
+    @Bean
+    public ShardedOrderService shardedOrderService(OrderShards orderShards,
+                                                   @Value("${spring.jpa.properties.springtx.id.node-id:0}") long nodeId) {
+        return new ShardedOrderService(orderShards, new SnowflakeIdGenerator(nodeId));
+    }
+
+    @Bean
+    public OrderShardRebalancer orderShardRebalancer(OrderShards orderShards,
+                                                     @Value("${springtx.order.sharding.rebalance-batch-size:1000}") int batchSize) {
+        return new OrderShardRebalancer(orderShards, batchSize);
+    }
+}
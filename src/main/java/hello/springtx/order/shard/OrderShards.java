@@ -0,0 +1,88 @@
+package hello.springtx.order.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.support.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * username 해시로 주문을 N 개 DataSource 에 나눈다.
+ * 배치는 jump consistent hash 라서 샤드를 n -> n+1 로 늘리면 1/(n+1) 만큼의 username 만 새 샤드로 옮겨 간다. (OrderShardRebalancer)
+ * 여러 샤드에 걸친 조회는 샤드마다 병렬로 실행하고 결과를 합친다. (scatter-gather)
+ */
+@Slf4j
+public class OrderShards {
+
+    private final List<OrderShard> shards;
+    private final ExecutorService scatterExecutor;
+
+    public OrderShards(String urlTemplate, int shardCount, int poolSize, String username, String password,
+                       MeterRegistry meterRegistry) {
+        List<OrderShard> list = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("order-shard-" + i);
+            dataSource.setJdbcUrl(String.format(urlTemplate, i));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMetricRegistry(meterRegistry);     //hikaricp.* pool=order-shard-N
+            new ResourceDatabasePopulator(new ClassPathResource("order-shard-schema.sql")).execute(dataSource);
+            list.add(new OrderShard(i, dataSource));
+        }
+        this.shards = Collections.unmodifiableList(list);
+
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "order-shard-scatter-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.scatterExecutor = Executors.newFixedThreadPool(shardCount, threadFactory);
+        log.info("order shards={}, url={}", shardCount, urlTemplate);
+    }
+
+    public OrderShard shardFor(String username) {
+        return shards.get(indexFor(username, shards.size()));
+    }
+
+    static int indexFor(String username, int shardCount) {
+        return Hashing.jumpConsistentHash(Hashing.hash64(username), shardCount);
+    }
+
+    public List<OrderShard> all() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * 모든 샤드에 같은 조회를 병렬로 보내고 샤드 순서대로 결과를 모은다. 한 샤드라도 실패하면 예외.
+     */
+    public <T> List<T> scatter(Function<OrderShard, T> query) {
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), scatterExecutor))
+                .collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    public void close() {
+        scatterExecutor.shutdown();
+        shards.forEach(OrderShard::close);
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springtx.order.shard;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class RebalanceReport {
+
+    private final int shards;
+    private final long scanned;
+    private final long moved;
+    private final long elapsedMillis;
+
+    public RebalanceReport(int shards, long scanned, long moved, long elapsedMillis) {
+        this.shards = shards;
+        this.scanned = scanned;
+        this.moved = moved;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
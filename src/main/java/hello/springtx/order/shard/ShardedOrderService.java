@@ -0,0 +1,79 @@
+package hello.springtx.order.shard;
+
+import hello.springtx.id.SnowflakeIdGenerator;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.PayStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * OrderService.order 와 같은 규칙으로 주문을 username 의 샤드에 저장한다.
+ * - 정상 : 완료 상태로 커밋
+ * - 예외 : 시스템 예외, 롤백
+ * - 잔고부족 : 대기 상태로 커밋하고 NotEnoughMoneyException
+ * 트랜잭션은 그 샤드의 트랜잭션 매니저로만 연다.
+ */
+@Slf4j
+public class ShardedOrderService {
+
+    private final OrderShards shards;
+    private final SnowflakeIdGenerator idGenerator;
+
+    public ShardedOrderService(OrderShards shards, SnowflakeIdGenerator idGenerator) {
+        this.shards = shards;
+        this.idGenerator = idGenerator;
+    }
+
+    public void order(Order order) throws NotEnoughMoneyException {
+        OrderShard shard = shards.shardFor(order.getUsername());
+        order.setId(idGenerator.nextId());
+
+        shard.tx().executeWithoutResult(status -> {
+            if (order.getUsername().equals("예외")) {
+                shard.insert(order);
+                log.info("시스템 예외 발생 shard={}", shard.getIndex());
+                throw new RuntimeException("시스템 예외");
+            }
+            order.setPayStatus(order.getUsername().equals("잔고부족") ? PayStatus.PENDING : PayStatus.COMPLETED);
+            shard.insert(order);
+        });
+
+        //잔고부족도 커밋은 끝났다. 예외는 트랜잭션 밖에서 알린다.
+        if (order.getPayStatus() == PayStatus.PENDING) {
+            throw new NotEnoughMoneyException("잔고가 부족합니다");
+        }
+    }
+
+    //username 을 알면 한 샤드만 본다
+    public List<Order> findByUsername(String username) {
+        return shards.shardFor(username).findByUsername(username);
+    }
+
+    //id 로는 샤드를 알 수 없으니 전체 샤드 조회
+    public Optional<Order> findById(long id) {
+        return shards.scatter(shard -> shard.findById(id)).stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst();
+    }
+
+    public long countByPayStatus(PayStatus payStatus) {
+        return shards.scatter(shard -> shard.countByPayStatus(payStatus)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 전체 샤드에 걸친 id 순 keyset 페이지. 샤드마다 limit 개씩 받아 합친 뒤 앞에서 limit 개만 쓴다.
+     */
+    public List<Order> findPendingAfter(long lastId, int limit) {
+        return shards.scatter(shard -> shard.findByPayStatusAfter(PayStatus.PENDING, lastId, limit)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(Order::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
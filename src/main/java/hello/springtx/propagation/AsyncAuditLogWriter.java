@@ -0,0 +1,192 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 감사 로그를 바운디드 큐에 넣고, 백그라운드 스레드가 batchSize 개 또는 linger 시간 단위로 모아서 한 트랜잭션에 커밋한다. (group commit)
+ *
+ * 내구성 계약
+ * - 호출한 트랜잭션이 커밋된 뒤(afterCommit)에만 큐에 들어간다. 롤백된 회원의 로그는 남지 않는다.
+ * - 큐에 있는 동안 JVM 이 죽으면 로그는 유실된다. (at-most-once)
+ * - 큐가 가득 차면 offerTimeout 만큼 기다리고, 그래도 자리가 없으면 버리고 dropped 카운터를 올린다.
+ * - 종료(@PreDestroy) 시에는 남은 큐를 모두 flush 한다.
+ */
+@Slf4j
+public class AsyncAuditLogWriter implements AuditLogWriter {
+
+    private final EntityManager em;
+    private final TransactionTemplate txTemplate;
+    private final BlockingQueue<Log> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutMillis;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public AsyncAuditLogWriter(EntityManager em, TransactionTemplate txTemplate, MeterRegistry registry,
+                               int capacity, int batchSize, Duration linger, Duration offerTimeout) {
+        this.em = em;
+        this.txTemplate = txTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.offerTimeoutMillis = offerTimeout.toMillis();
+
+        registry.gauge("springtx.audit.queue.depth", queue, BlockingQueue::size);
+        this.flushTimer = Timer.builder("springtx.audit.flush").publishPercentileHistogram().register(registry);
+        this.flushedCounter = registry.counter("springtx.audit.flushed");
+        this.droppedCounter = registry.counter("springtx.audit.dropped");
+        this.failedCounter = registry.counter("springtx.audit.failed");
+    }
+
+    @Override
+    public void write(Log logMessage) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //바깥 트랜잭션이 커밋되어야 큐에 넣는다.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(logMessage);
+                }
+            });
+        } else {
+            enqueue(logMessage);
+        }
+    }
+
+    private void enqueue(Log logMessage) {
+        pending.incrementAndGet();
+        try {
+            if (queue.offer(logMessage, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.decrementAndGet();
+        droppedCounter.increment();
+        log.warn("audit log 큐가 가득 차서 버림 message={}", logMessage.getMessage());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runLoop, "audit-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        //flush 도중 JDBC 를 interrupt 하지 않도록 플래그만 내리고, 남은 큐를 비울 때까지 기다린다.
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void runLoop() {
+        List<Log> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    //첫 건이 올 때까지 기다린 뒤, batchSize 가 차거나 linger 가 지날 때까지 모은다.
+    private void collect(List<Log> batch) throws InterruptedException {
+        Log first = queue.poll(lingerNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Log next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Log> batch) {
+        try {
+            flushTimer.record(() -> txTemplate.executeWithoutResult(status -> batch.forEach(em::persist)));
+            flushedCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            //한 건 때문에 배치 전체를 잃지 않도록 한 건씩 다시 시도
+            log.warn("audit log 배치 flush 실패, 건별로 재시도 size={}", batch.size(), e);
+            for (Log logMessage : batch) {
+                retryOne(logMessage);
+            }
+        } finally {
+            pending.addAndGet(-batch.size());
+        }
+    }
+
+    private void retryOne(Log logMessage) {
+        try {
+            txTemplate.executeWithoutResult(status -> em.persist(new Log(logMessage.getMessage())));
+            flushedCounter.increment();
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            log.error("audit log 저장 실패 message={}", logMessage.getMessage(), e);
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 큐에 들어간 로그가 모두 flush 될 때까지 기다린다. 테스트, 종료 처리용.
+     */
+    public boolean awaitFlushed(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+/**
+ * springtx.audit-log.mode 값에 따라 AuditLogWriter 구현체를 등록한다.
+ */
+@Configuration
+public class AuditLogConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "requires-new", matchIfMissing = true)
+    public AuditLogWriter requiresNewAuditLogWriter(LogRepository logRepository) {
+        return new RequiresNewAuditLogWriter(logRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "nested")
+    public AuditLogWriter nestedAuditLogWriter(LogRepository logRepository) {
+        return new NestedAuditLogWriter(logRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "outbox")
+    public AuditLogWriter outboxAuditLogWriter(LogOutboxRepository logOutboxRepository) {
+        return new OutboxAuditLogWriter(logOutboxRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "outbox")
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink logTableOutboxSink(EntityManager em) {
+        return new LogTableOutboxSink(em);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "outbox")
+    public LogOutboxDrainer logOutboxDrainer(LogOutboxRepository logOutboxRepository,
+                                             OutboxSink outboxSink,
+                                             PlatformTransactionManager txManager,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${springtx.audit-log.outbox.batch-size:1000}") int batchSize,
+                                             @Value("${springtx.audit-log.outbox.poll-interval:500ms}") Duration pollInterval) {
+        return new LogOutboxDrainer(logOutboxRepository, outboxSink, new TransactionTemplate(txManager),
+                meterRegistry, batchSize, pollInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "async")
+    public AsyncAuditLogWriter asyncAuditLogWriter(EntityManager em,
+                                                   PlatformTransactionManager txManager,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${springtx.audit-log.async.capacity:10000}") int capacity,
+                                                   @Value("${springtx.audit-log.async.batch-size:500}") int batchSize,
+                                                   @Value("${springtx.audit-log.async.linger:20ms}") Duration linger,
+                                                   @Value("${springtx.audit-log.async.offer-timeout:100ms}") Duration offerTimeout) {
+        return new AsyncAuditLogWriter(em, new TransactionTemplate(txManager), meterRegistry,
+                capacity, batchSize, linger, offerTimeout);
+    }
+}
@@ -0,0 +1,10 @@
+package hello.springtx.propagation;
+
+/**
+ * MemberService 가 감사 로그(Log)를 남길 때 사용하는 쓰기 전략.
+ * springtx.audit-log.mode 설정으로 구현체를 고른다. (기본값은 requires-new)
+ */
+public interface AuditLogWriter {
+
+    void write(Log logMessage);
+}
@@ -0,0 +1,42 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MemberService.joinAll 결과. 청크 단위로 커밋하므로 실패한 청크만 따로 모아서 돌려준다.
+ */
+@Getter
+public class BulkJoinResult {
+
+    private int joined;
+    private final List<ChunkFailure> failures = new ArrayList<>();
+
+    void chunkCommitted(int size) {
+        joined += size;
+    }
+
+    void chunkFailed(int chunkIndex, List<String> usernames, RuntimeException cause) {
+        failures.add(new ChunkFailure(chunkIndex, Collections.unmodifiableList(new ArrayList<>(usernames)), cause));
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Getter
+    public static class ChunkFailure {
+        private final int chunkIndex;
+        private final List<String> usernames;
+        private final RuntimeException cause;
+
+        ChunkFailure(int chunkIndex, List<String> usernames, RuntimeException cause) {
+            this.chunkIndex = chunkIndex;
+            this.usernames = usernames;
+            this.cause = cause;
+        }
+    }
+}
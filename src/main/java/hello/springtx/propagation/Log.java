@@ -1,19 +1,35 @@
 package hello.springtx.propagation;
 
+import hello.springtx.id.SnowflakeIdentifierGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
 
 @Entity
+@Table(indexes = @Index(name = "idx_log_message", columnList = "message"))
+@NamedQueries({
+        @NamedQuery(name = Log.FIND_BY_MESSAGE, query = "select l from Log l where l.message = :message"),
+        @NamedQuery(name = Log.FIND_DTO_BY_MESSAGE,
+                query = "select new hello.springtx.propagation.LogDto(l.id, l.message) from Log l where l.message = :message")
+})
 @Getter
 @Setter
 public class Log {
 
+    public static final String FIND_BY_MESSAGE = "Log.findByMessage";
+    public static final String FIND_DTO_BY_MESSAGE = "Log.findDtoByMessage";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
     private Long id;
 
     private String message;
@@ -0,0 +1,18 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+
+/**
+ * 조회 전용 프로젝션. 영속성 컨텍스트에 올라가지 않는다.
+ */
+@Getter
+public class LogDto {
+
+    private final Long id;
+    private final String message;
+
+    public LogDto(Long id, String message) {
+        this.id = id;
+        this.message = message;
+    }
+}
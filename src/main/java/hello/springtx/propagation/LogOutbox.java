@@ -0,0 +1,35 @@
+package hello.springtx.propagation;
+
+import hello.springtx.id.SnowflakeIdentifierGenerator;
+import lombok.Getter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 감사 로그 outbox. 회원과 같은 트랜잭션에서 insert 되고, LogOutboxDrainer 가 모아서 Log 테이블로 옮긴다.
+ * id 가 시간순(Snowflake)이라 id 로 keyset 페이징한다.
+ */
+@Entity
+@Table(name = "log_outbox")
+@Getter
+public class LogOutbox {
+
+    @Id
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
+    private Long id;
+
+    private String message;
+
+    protected LogOutbox() {
+
+    }
+
+    public LogOutbox(String message) {
+        this.message = message;
+    }
+}
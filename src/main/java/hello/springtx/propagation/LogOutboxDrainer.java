@@ -0,0 +1,109 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox 를 pollInterval 마다 batchSize 개씩 keyset(id > lastId) 으로 읽어서 sink 로 넘기고 지운다.
+ * 배치 하나 = 트랜잭션 하나. 한 번 돌 때마다 lastId 를 처음부터 다시 시작하므로 늦게 커밋된(작은 id) 행도 다음 회차에 옮겨진다.
+ *
+ * 옮기는 트랜잭션이 실패하면 outbox 행이 그대로 남아 다음 회차에 다시 시도한다. (at-least-once)
+ * 드레이너는 인스턴스 하나에서만 돌려야 한다.
+ */
+@Slf4j
+public class LogOutboxDrainer {
+
+    private final LogOutboxRepository logOutboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate txTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+
+    private final Timer drainTimer;
+    private final Counter drainedCounter;
+
+    private ScheduledExecutorService scheduler;
+
+    public LogOutboxDrainer(LogOutboxRepository logOutboxRepository, OutboxSink sink, TransactionTemplate txTemplate,
+                            MeterRegistry registry, int batchSize, Duration pollInterval) {
+        this.logOutboxRepository = logOutboxRepository;
+        this.sink = sink;
+        this.txTemplate = txTemplate;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+
+        this.drainTimer = registry.timer("springtx.outbox.drain");
+        this.drainedCounter = registry.counter("springtx.outbox.drained");
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-outbox-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::drainSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("outbox drain 실패, 다음 회차에 재시도", e);
+        }
+    }
+
+    /**
+     * 지금 쌓여 있는 outbox 를 모두 옮긴다. 옮긴 건수를 반환.
+     */
+    public synchronized int drain() {
+        int total = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            long from = lastId;
+            long start = System.nanoTime();
+            List<Long> ids = txTemplate.execute(status -> {
+                List<LogOutbox> batch = logOutboxRepository.findAfter(from, batchSize);
+                if (batch.isEmpty()) {
+                    return Collections.<Long>emptyList();
+                }
+                sink.accept(batch);
+
+                List<Long> moved = new ArrayList<>(batch.size());
+                for (LogOutbox outbox : batch) {
+                    moved.add(outbox.getId());
+                }
+                logOutboxRepository.deleteByIds(moved);
+                return moved;
+            });
+            if (ids == null || ids.isEmpty()) {
+                return total;
+            }
+            drainTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            drainedCounter.increment(ids.size());
+            total += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+}
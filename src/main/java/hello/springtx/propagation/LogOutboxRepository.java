@@ -0,0 +1,39 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class LogOutboxRepository {
+
+    private final EntityManager em;
+
+    //호출한 트랜잭션(회원 저장)에 반드시 참여해야 한다.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void save(LogOutbox outbox) {
+        em.persist(outbox);
+    }
+
+    public List<LogOutbox> findAfter(long lastId, int limit) {
+        return em.createQuery("select o from LogOutbox o where o.id > :lastId order by o.id", LogOutbox.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public int deleteByIds(List<Long> ids) {
+        return em.createQuery("delete from LogOutbox o where o.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    public long count() {
+        return em.createQuery("select count(o) from LogOutbox o", Long.class).getSingleResult();
+    }
+}
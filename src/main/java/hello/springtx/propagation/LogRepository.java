@@ -7,6 +7,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,7 +21,28 @@ public class LogRepository {
     public void save(Log logMessage) {
         log.info("저장");
         em.persist(logMessage);
+        checkLogException(logMessage);
+    }
+
+    //REQUIRES_NEW 대신 같은 커넥션에서 savepoint 로 부분 롤백. flush 해서 insert 가 savepoint 안에서 실행되게 한다.
+    @Transactional(propagation = Propagation.NESTED)
+    public void saveNested(Log logMessage) {
+        log.info("저장 (NESTED)");
+        em.persist(logMessage);
+        em.flush();
+        checkLogException(logMessage);
+    }
 
+    //벌크 가입용. 호출한 트랜잭션에 참여해서 배치 insert 로 같이 커밋된다.
+    @Transactional
+    public void saveAll(List<Log> logMessages) {
+        for (Log logMessage : logMessages) {
+            em.persist(logMessage);
+            checkLogException(logMessage);
+        }
+    }
+
+    private void checkLogException(Log logMessage) {
         if (logMessage.getMessage().contains("로그예외")) {
             log.info("log 저장시 예외 발생");
             throw new RuntimeException("예외 발생");
@@ -28,8 +50,17 @@ public class LogRepository {
     }
 
     public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message=:message", Log.class)
+        return em.createNamedQuery(Log.FIND_BY_MESSAGE, Log.class)
+                .setParameter("message", message)
+                .setMaxResults(1)
+                .getResultList().stream().findAny();
+    }
+
+    //읽기 전용 조회. 엔티티를 영속성 컨텍스트에 올리지 않는다.
+    public Optional<LogDto> findDto(String message) {
+        return em.createNamedQuery(Log.FIND_DTO_BY_MESSAGE, LogDto.class)
                 .setParameter("message", message)
+                .setMaxResults(1)
                 .getResultList().stream().findAny();
     }
 }
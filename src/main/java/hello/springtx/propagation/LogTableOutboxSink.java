@@ -0,0 +1,22 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 기본 sink. outbox 를 Log 테이블로 옮긴다. (JDBC 배치 insert)
+ */
+@RequiredArgsConstructor
+public class LogTableOutboxSink implements OutboxSink {
+
+    private final EntityManager em;
+
+    @Override
+    public void accept(List<LogOutbox> batch) {
+        for (LogOutbox outbox : batch) {
+            em.persist(new Log(outbox.getMessage()));
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package hello.springtx.propagation;
 
+import hello.springtx.id.SnowflakeIdentifierGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
 
 @Entity
+@Table(indexes = @Index(name = "idx_member_username", columnList = "username"))
+@NamedQueries({
+        @NamedQuery(name = Member.FIND_BY_USERNAME, query = "select m from Member m where m.username = :username"),
+        @NamedQuery(name = Member.FIND_DTO_BY_USERNAME,
+                query = "select new hello.springtx.propagation.MemberDto(m.id, m.username) from Member m where m.username = :username")
+})
 @Getter
 @Setter
 public class Member {
 
+    public static final String FIND_BY_USERNAME = "Member.findByUsername";
+    public static final String FIND_DTO_BY_USERNAME = "Member.findDtoByUsername";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
     private Long id;
 
     private String username;
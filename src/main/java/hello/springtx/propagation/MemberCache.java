@@ -0,0 +1,106 @@
+package hello.springtx.propagation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MemberRepository.findDto 앞에 두는 read-through 캐시. (크기 제한, TTL, hit/miss 메트릭 = cache.gets{cache=member})
+ * 엔티티는 스레드끼리 공유하면 안 되므로 MemberDto 를 캐시한다. 없는 회원(Optional.empty)도 캐시한다.
+ * 트랜잭션 밖의 조회는 UsernameBloomFilter 가 확실히 없다고 하면 캐시도 DB 도 보지 않는다.
+ *
+ * 트랜잭션 안에서는 캐시를 읽지 않고(자기 쓰기가 보여야 하므로) DB 에서 읽는다. 읽은 값은 아직 커밋 안 된 데이터일 수 있으므로
+ * afterCommit 에 캐시에 넣는다.
+ * 롤백되면 캐시에 남지 않는다. 회원이 저장되면 커밋 후에 해당 username 을 캐시에서 지운다.
+ *
+ * 읽는 사이에 다른 트랜잭션이 회원을 저장하고 캐시를 지우면, 읽어 둔 값(주로 empty)은 이미 낡은 값이다.
+ * 그래서 username 마다 세대 번호를 두고 지울 때 올린다. 읽기 전에 본 세대와 넣을 때의 세대가 다르면 넣지 않는다.
+ */
+@Component
+public class MemberCache {
+
+    private final MemberRepository memberRepository;
+    private final UsernameBloomFilter bloomFilter;
+    private final Cache<String, Optional<MemberDto>> cache;
+    private final Counter bloomShortCircuit;
+    //username 해시로 나눈 세대 번호. 겹치는 username 끼리는 캐시에 못 넣는 일이 가끔 생길 뿐 틀린 값이 들어가지는 않는다.
+    private final AtomicLongArray generations = new AtomicLongArray(1024);
+
+    public MemberCache(MemberRepository memberRepository, UsernameBloomFilter bloomFilter, MeterRegistry meterRegistry,
+                       @Value("${springtx.member.cache.max-size:10000}") long maxSize,
+                       @Value("${springtx.member.cache.ttl:5m}") Duration ttl) {
+        this.memberRepository = memberRepository;
+        this.bloomFilter = bloomFilter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "member");
+        this.bloomShortCircuit = meterRegistry.counter("springtx.member.bloom.short.circuit");
+    }
+
+    public Optional<MemberDto> find(String username) {
+        //트랜잭션 안에서는 방금 저장한(아직 bloom 에 없는) 회원을 찾을 수 있으니 bloom 을 보지 않는다.
+        if (!TransactionSynchronizationManager.isActualTransactionActive() && bloomFilter.definitelyAbsent(username)) {
+            bloomShortCircuit.increment();
+            return Optional.empty();
+        }
+
+        //트랜잭션 안에서는 캐시를 보지 않는다. 캐시는 AFTER_COMMIT 에야 지워지므로 이 트랜잭션이 방금 저장한 회원이
+        //캐시의 empty 에 가려진다. DB 에서 읽은 값은 커밋 후에 캐시에 넣는다.
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            Optional<MemberDto> cached = cache.getIfPresent(username);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long generation = generations.get(slot(username));
+        Optional<MemberDto> loaded = memberRepository.findDto(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putIfCurrent(username, loaded, generation);
+                }
+            });
+        } else {
+            putIfCurrent(username, loaded, generation);
+        }
+        return loaded;
+    }
+
+    //세대 확인과 저장을 키 단위 compute 안에서 한다. 확인 뒤에 지우기가 들어오면 compute 가 끝난 다음 지워진다.
+    private void putIfCurrent(String username, Optional<MemberDto> loaded, long generation) {
+        cache.asMap().compute(username, (key, current) ->
+                generations.get(slot(key)) == generation ? loaded : current);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMemberSaved(MemberSavedEvent event) {
+        event.getUsernames().forEach(this::invalidate);
+    }
+
+    public void invalidate(String username) {
+        //세대를 먼저 올려야 그 전에 읽기 시작한 조회가 낡은 값을 다시 넣지 못한다.
+        generations.incrementAndGet(slot(username));
+        cache.invalidate(username);
+    }
+
+    private int slot(String username) {
+        return Math.floorMod(username.hashCode(), generations.length());
+    }
+}
@@ -0,0 +1,18 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+
+/**
+ * 조회 전용 프로젝션. 영속성 컨텍스트에 올라가지 않는다.
+ */
+@Getter
+public class MemberDto {
+
+    private final Long id;
+    private final String username;
+
+    public MemberDto(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+}
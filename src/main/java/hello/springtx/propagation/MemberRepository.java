@@ -2,10 +2,13 @@ package hello.springtx.propagation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -14,15 +17,43 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void save(Member member) {
         log.info("member 저장");
         em.persist(member);
+        eventPublisher.publishEvent(new MemberSavedEvent(List.of(member.getUsername())));
+    }
+
+    @Transactional
+    public void saveAll(List<Member> members) {
+        List<String> usernames = new ArrayList<>(members.size());
+        for (Member member : members) {
+            em.persist(member);
+            usernames.add(member.getUsername());
+        }
+        eventPublisher.publishEvent(new MemberSavedEvent(usernames));
+    }
+
+    //청크가 끝날 때마다 배치 insert 를 내보내고 영속성 컨텍스트를 비워서 힙이 계속 늘지 않게 한다.
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
     }
 
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username=:username", Member.class).setParameter("username", username)
+        return em.createNamedQuery(Member.FIND_BY_USERNAME, Member.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .getResultList().stream().findAny();
+    }
+
+    //읽기 전용 조회. 엔티티를 영속성 컨텍스트에 올리지 않는다.
+    public Optional<MemberDto> findDto(String username) {
+        return em.createNamedQuery(Member.FIND_DTO_BY_USERNAME, MemberDto.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
                 .getResultList().stream().findAny();
     }
 }
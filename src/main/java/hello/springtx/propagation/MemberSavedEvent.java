@@ -0,0 +1,19 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * MemberRepository.save/saveAll 에서 발행한다.
+ * 받는 쪽은 @TransactionalEventListener(AFTER_COMMIT) 로 받아서 커밋된 회원만 반영한다.
+ */
+@Getter
+public class MemberSavedEvent {
+
+    private final List<String> usernames;
+
+    public MemberSavedEvent(List<String> usernames) {
+        this.usernames = usernames;
+    }
+}
@@ -3,8 +3,16 @@ package hello.springtx.propagation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -13,6 +21,12 @@ public class MemberService {
 
     private final LogRepository logRepository;
     private final MemberRepository memberRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final PlatformTransactionManager txManager;
+    private final MemberCache memberCache;
+
+    @Value("${springtx.member.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
 
     @Transactional
     public void joinV1(String username) {
@@ -45,4 +59,76 @@ public class MemberService {
         }
         log.info("===logRepository 호출 종료 ==");
     }
+
+    //joinV2 와 같은 규칙(로그 실패는 회원가입에 영향 없음)이지만, 로그 저장 방식은 springtx.audit-log.mode 로 고른다.
+    @Transactional
+    public void joinV3(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        memberRepository.save(member);
+
+        try {
+            auditLogWriter.write(logMessage);
+        } catch (RuntimeException e) {
+            log.info(" log 저장에 실패했습니다 logMessage={}", logMessage.getMessage());
+        }
+    }
+
+    //회원 조회는 MemberCache 를 거친다. (트랜잭션 밖은 캐시, 안은 DB)
+    public Optional<MemberDto> findMember(String username) {
+        return memberCache.find(username);
+    }
+
+    public BulkJoinResult joinAll(Collection<String> usernames) {
+        return joinAll(usernames, bulkChunkSize);
+    }
+
+    /**
+     * chunkSize 명씩 잘라서 청크마다 트랜잭션 하나로 커밋한다.
+     * 청크 하나가 실패하면 그 청크만 롤백되고 결과에 기록한 뒤 다음 청크를 계속 진행한다.
+     * (자기 호출이라 @Transactional 대신 TransactionTemplate 을 쓴다.)
+     */
+    public BulkJoinResult joinAll(Collection<String> usernames, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+        }
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        BulkJoinResult result = new BulkJoinResult();
+
+        List<String> chunk = new ArrayList<>(chunkSize);
+        int chunkIndex = 0;
+        for (String username : usernames) {
+            chunk.add(username);
+            if (chunk.size() == chunkSize) {
+                joinChunk(txTemplate, chunkIndex++, chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            joinChunk(txTemplate, chunkIndex, chunk, result);
+        }
+        return result;
+    }
+
+    private void joinChunk(TransactionTemplate txTemplate, int chunkIndex, List<String> usernames, BulkJoinResult result) {
+        List<Member> members = new ArrayList<>(usernames.size());
+        List<Log> logMessages = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            members.add(new Member(username));
+            logMessages.add(new Log(username));
+        }
+
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                memberRepository.saveAll(members);
+                logRepository.saveAll(logMessages);
+                memberRepository.flushAndClear();
+            });
+            result.chunkCommitted(usernames.size());
+        } catch (RuntimeException e) {
+            log.info("벌크 가입 청크 실패 chunkIndex={}, size={}", chunkIndex, usernames.size(), e);
+            result.chunkFailed(chunkIndex, usernames, e);
+        }
+    }
 }
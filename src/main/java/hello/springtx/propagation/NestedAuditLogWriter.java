@@ -0,0 +1,18 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * NESTED(savepoint) 방식. 바깥 트랜잭션과 같은 커넥션을 쓰고, 로그 저장이 실패하면 savepoint 까지만 롤백한다.
+ * 요청 하나가 커넥션을 하나만 잡으므로 풀 크기만큼 동시 요청이 와도 풀이 고갈되지 않는다.
+ */
+@RequiredArgsConstructor
+public class NestedAuditLogWriter implements AuditLogWriter {
+
+    private final LogRepository logRepository;
+
+    @Override
+    public void write(Log logMessage) {
+        logRepository.saveNested(logMessage);
+    }
+}
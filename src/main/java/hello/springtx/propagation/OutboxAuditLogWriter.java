@@ -0,0 +1,18 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * outbox 방식. 로그를 회원과 같은 트랜잭션에 outbox 행으로 넣는다. (커넥션 1개, 커밋 1번)
+ * 회원이 롤백되면 outbox 도 같이 롤백되므로 감사 데이터가 업무 데이터와 항상 일치한다.
+ */
+@RequiredArgsConstructor
+public class OutboxAuditLogWriter implements AuditLogWriter {
+
+    private final LogOutboxRepository logOutboxRepository;
+
+    @Override
+    public void write(Log logMessage) {
+        logOutboxRepository.save(new LogOutbox(logMessage.getMessage()));
+    }
+}
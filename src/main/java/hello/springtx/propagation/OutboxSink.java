@@ -0,0 +1,11 @@
+package hello.springtx.propagation;
+
+import java.util.List;
+
+/**
+ * outbox 를 옮길 대상. LogOutboxDrainer 의 트랜잭션 안에서 호출된다.
+ */
+public interface OutboxSink {
+
+    void accept(List<LogOutbox> batch);
+}
@@ -0,0 +1,17 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 기존 방식. LogRepository.save 가 REQUIRES_NEW 라서 호출마다 커넥션을 하나 더 잡고 따로 커밋한다.
+ */
+@RequiredArgsConstructor
+public class RequiresNewAuditLogWriter implements AuditLogWriter {
+
+    private final LogRepository logRepository;
+
+    @Override
+    public void write(Log logMessage) {
+        logRepository.save(logMessage);
+    }
+}
@@ -0,0 +1,85 @@
+package hello.springtx.propagation;
+
+import hello.springtx.support.BloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Stream;
+
+/**
+ * 가입된 username 의 Bloom filter. "확실히 없는" username 조회를 DB 까지 가지 않고 끝낸다. (가입 가능 여부 확인 등)
+ *
+ * - 스프링이 다 뜬 뒤(ApplicationReadyEvent) Member 테이블을 스트리밍해서 채운다. 다 채우기 전에는 판단하지 않는다.
+ * - 회원 저장은 커밋 직전(BEFORE_COMMIT)에 넣는다. 커밋된 회원이 없다고 나오는 순간이 없고,
+ *   롤백된 username 은 오탐으로만 남는다.
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter {
+
+    private final BloomFilter filter;
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    private volatile boolean ready;
+
+    public UsernameBloomFilter(EntityManager em, PlatformTransactionManager txManager, MeterRegistry meterRegistry,
+                               @Value("${springtx.member.bloom.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${springtx.member.bloom.fpp:0.01}") double fpp,
+                               @Value("${springtx.member.bloom.fetch-size:1000}") int fetchSize) {
+        this.filter = new BloomFilter(expectedInsertions, fpp);
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+
+        meterRegistry.gauge("springtx.member.bloom.bytes", filter, BloomFilter::sizeInBytes);
+        meterRegistry.gauge("springtx.member.bloom.inserted", filter, BloomFilter::getInserted);
+        meterRegistry.gauge("springtx.member.bloom.expected.fpp", filter, BloomFilter::expectedFpp);
+        log.info("username bloom filter {}KB, hash {}개", filter.sizeInBytes() / 1024, filter.getHashCount());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<String> usernames = em.createQuery("select m.username from Member m", String.class)
+                    .setHint("org.hibernate.fetchSize", fetchSize)
+                    .getResultStream()) {
+                usernames.filter(username -> username != null).forEach(filter::put);
+            }
+        });
+        ready = true;
+        log.info("username bloom filter 준비 완료 count={}, {}ms", filter.getInserted(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onMemberSaved(MemberSavedEvent event) {
+        event.getUsernames().forEach(filter::put);
+    }
+
+    /**
+     * true 면 이 username 의 회원은 확실히 없다. 준비 전이면 항상 false.
+     */
+    public boolean definitelyAbsent(String username) {
+        return ready && !filter.mightContain(username);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public double expectedFpp() {
+        return filter.expectedFpp();
+    }
+}
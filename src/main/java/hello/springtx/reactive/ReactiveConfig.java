@@ -0,0 +1,29 @@
+package hello.springtx.reactive;
+
+import hello.springtx.id.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReactiveDatabase reactiveDatabase(@Value("${springtx.reactive.url}") String url,
+                                             @Value("${springtx.reactive.pool-size:10}") int poolSize,
+                                             @Value("${spring.jpa.properties.springtx.id.node-id:0}") long nodeId) {
+        return new ReactiveDatabase(url, poolSize, new SnowflakeIdGenerator(nodeId));
+    }
+
+    @Bean
+    public ReactiveOrderService reactiveOrderService(ReactiveDatabase reactiveDatabase) {
+        return new ReactiveOrderService(reactiveDatabase);
+    }
+
+    @Bean
+    public ReactiveMemberService reactiveMemberService(ReactiveDatabase reactiveDatabase) {
+        return new ReactiveMemberService(reactiveDatabase);
+    }
+}
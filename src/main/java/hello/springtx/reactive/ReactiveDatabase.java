@@ -0,0 +1,60 @@
+package hello.springtx.reactive;
+
+import hello.springtx.id.SnowflakeIdGenerator;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * 리액티브 서비스들이 같이 쓰는 R2DBC 커넥션 풀, DatabaseClient, TransactionalOperator.
+ * R2dbcTransactionManager 는 일부러 빈으로 등록하지 않는다. (JPA 트랜잭션 매니저와 @Transactional 에서 충돌)
+ */
+public class ReactiveDatabase {
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+    private final TransactionalOperator required;
+    private final TransactionalOperator requiresNew;
+    private final SnowflakeIdGenerator idGenerator;
+
+    public ReactiveDatabase(String url, int poolSize, SnowflakeIdGenerator idGenerator) {
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+                .maxSize(poolSize)
+                .build());
+        new ResourceDatabasePopulator(new ClassPathResource("reactive-schema.sql")).populate(pool).block();
+
+        R2dbcTransactionManager txManager = new R2dbcTransactionManager(pool);
+        this.client = DatabaseClient.create(pool);
+        this.required = TransactionalOperator.create(txManager);
+        this.requiresNew = TransactionalOperator.create(txManager,
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        this.idGenerator = idGenerator;
+    }
+
+    public DatabaseClient client() {
+        return client;
+    }
+
+    public TransactionalOperator required() {
+        return required;
+    }
+
+    public TransactionalOperator requiresNew() {
+        return requiresNew;
+    }
+
+    public long nextId() {
+        return idGenerator.nextId();
+    }
+
+    public void close() {
+        pool.dispose();
+    }
+}
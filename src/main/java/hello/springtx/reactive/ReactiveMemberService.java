@@ -0,0 +1,57 @@
+package hello.springtx.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * MemberService.joinV2 의 리액티브 버전. 로그는 REQUIRES_NEW 로 따로 커밋하고,
+ * 로그 저장이 실패해도(로그예외) 회원 가입은 커밋된다.
+ */
+@Slf4j
+public class ReactiveMemberService {
+
+    private final ReactiveDatabase db;
+
+    public ReactiveMemberService(ReactiveDatabase db) {
+        this.db = db;
+    }
+
+    public Mono<Void> join(String username) {
+        Mono<Void> saveMember = Mono.defer(() -> db.client().sql("insert into member (id, username) values (:id, :username)")
+                .bind("id", db.nextId())
+                .bind("username", username)
+                .then());
+
+        Mono<Void> saveLog = Mono.defer(() -> db.client().sql("insert into log (id, message) values (:id, :message)")
+                        .bind("id", db.nextId())
+                        .bind("message", username)
+                        .then())
+                .then(Mono.defer(() -> username.contains("로그예외")
+                        ? Mono.<Void>error(new RuntimeException("예외 발생"))
+                        : Mono.<Void>empty()));
+
+        Mono<Void> logTx = db.requiresNew().transactional(saveLog)
+                .onErrorResume(RuntimeException.class, e -> {
+                    log.info(" log 저장에 실패했습니다 logMessage={}", username);
+                    return Mono.empty();
+                });
+
+        return db.required().transactional(saveMember.then(logTx));
+    }
+
+    public Mono<Boolean> memberExists(String username) {
+        return exists("select count(*) as cnt from member where username = :value", username);
+    }
+
+    public Mono<Boolean> logExists(String message) {
+        return exists("select count(*) as cnt from log where message = :value", message);
+    }
+
+    private Mono<Boolean> exists(String sql, String value) {
+        return db.client().sql(sql)
+                .bind("value", value)
+                .map(row -> row.get("cnt", Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+}
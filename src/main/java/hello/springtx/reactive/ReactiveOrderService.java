@@ -0,0 +1,69 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.PayStatus;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * OrderService 의 리액티브 버전. 규칙은 같다.
+ * - 예외 : 시스템 예외, 롤백
+ * - 잔고부족 : 대기 상태로 커밋하고 NotEnoughMoneyException
+ * - 그 외 : 완료
+ *
+ * TransactionalOperator 는 에러 신호가 오면 무조건 롤백하므로, 잔고부족은 트랜잭션 안에서는 정상 값(PENDING)으로 커밋하고
+ * 트랜잭션 밖에서 NotEnoughMoneyException 으로 바꾼다.
+ */
+@Slf4j
+public class ReactiveOrderService {
+
+    private final ReactiveDatabase db;
+
+    public ReactiveOrderService(ReactiveDatabase db) {
+        this.db = db;
+    }
+
+    public Mono<Order> order(Order order) {
+        Mono<Order> tx = Mono.defer(() -> {
+            order.setId(db.nextId());
+            return db.client().sql("insert into orders (id, username) values (:id, :username)")
+                    .bind("id", order.getId())
+                    .bind("username", order.getUsername())
+                    .then()
+                    .then(Mono.defer(() -> pay(order)));
+        });
+
+        return db.required().transactional(tx)
+                .flatMap(o -> o.getPayStatus() == PayStatus.PENDING
+                        ? Mono.error(new NotEnoughMoneyException("잔고가 부족합니다"))
+                        : Mono.just(o));
+    }
+
+    private Mono<Order> pay(Order order) {
+        if ("예외".equals(order.getUsername())) {
+            log.info("시스템 예외 발생");
+            return Mono.error(new RuntimeException("시스템 예외"));
+        }
+        order.setPayStatus("잔고부족".equals(order.getUsername()) ? PayStatus.PENDING : PayStatus.COMPLETED);
+        return db.client().sql("update orders set pay_status = :payStatus where id = :id")
+                .bind("payStatus", order.getPayStatus().getCode())
+                .bind("id", order.getId())
+                .then()
+                .thenReturn(order);
+    }
+
+    public Mono<Order> findById(long id) {
+        return db.client().sql("select id, username, pay_status from orders where id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    Order order = new Order();
+                    order.setId(row.get("id", Long.class));
+                    order.setUsername(row.get("username", String.class));
+                    Integer code = row.get("pay_status", Integer.class);
+                    order.setPayStatus(code == null ? null : PayStatus.fromCode(code));
+                    return order;
+                })
+                .one();
+    }
+}
@@ -0,0 +1,25 @@
+package hello.springtx.startup;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.ApplicationStartup;
+
+/**
+ * ApplicationStartup 은 컨텍스트가 만들어지기 전에 정해야 해서 프로퍼티 파일이 아니라 시스템 프로퍼티/환경 변수로 켠다.
+ * -Dspringtx.startup.record=true  또는  SPRINGTX_STARTUP_RECORD=true
+ */
+public final class StartupRecording {
+
+    static final int CAPACITY = 10_000;
+
+    private StartupRecording() {
+    }
+
+    public static ApplicationStartup applicationStartup() {
+        return enabled() ? new BufferingApplicationStartup(CAPACITY) : ApplicationStartup.DEFAULT;
+    }
+
+    static boolean enabled() {
+        return Boolean.getBoolean("springtx.startup.record")
+                || Boolean.parseBoolean(System.getenv("SPRINGTX_STARTUP_RECORD"));
+    }
+}
@@ -0,0 +1,121 @@
+package hello.springtx.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 기동이 끝나면(다른 ApplicationReadyEvent 리스너까지 끝난 뒤) 기동 시간과 ApplicationStartup 단계별 시간을 리포트로 남긴다.
+ * springtx.startup.exit-after-ready=true 면 리포트를 쓰고 종료한다. (CDS 아카이브 생성, 기동 시간 반복 측정용)
+ */
+@Slf4j
+@Component
+public class StartupReportWriter {
+
+    private final Path reportFile;
+    private final int top;
+    private final boolean exitAfterReady;
+
+    public StartupReportWriter(@Value("${springtx.startup.report:build/reports/startup/startup.txt}") String reportFile,
+                               @Value("${springtx.startup.top:30}") int top,
+                               @Value("${springtx.startup.exit-after-ready:false}") boolean exitAfterReady) {
+        this.reportFile = Paths.get(reportFile);
+        this.top = top;
+        this.exitAfterReady = exitAfterReady;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        Duration ready = event.getTimeTaken();
+        long jvmUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("기동 완료 ready={}ms, jvm uptime={}ms", ready == null ? -1 : ready.toMillis(), jvmUptime);
+
+        ApplicationStartup startup = context.getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup) {
+            StartupTimeline timeline = ((BufferingApplicationStartup) startup).drainBufferedTimeline();
+            write(format(timeline, ready, jvmUptime, context.getEnvironment().getActiveProfiles(), top));
+        }
+
+        if (exitAfterReady) {
+            //리스너 안에서 컨텍스트를 닫지 않도록 별도 스레드에서 종료
+            new Thread(() -> System.exit(SpringApplication.exit(context)), "startup-exit").start();
+        }
+    }
+
+    private void write(String report) {
+        try {
+            Path parent = reportFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+            log.info("startup report: {}", reportFile.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String format(StartupTimeline timeline, Duration ready, long jvmUptimeMillis, String[] profiles, int top) {
+        List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+        StringBuilder sb = new StringBuilder();
+        sb.append("profiles=").append(String.join(",", profiles))
+                .append(" ready=").append(ready == null ? -1 : ready.toMillis()).append("ms")
+                .append(" jvmUptime=").append(jvmUptimeMillis).append("ms")
+                .append(" steps=").append(events.size()).append('\n');
+
+        //같은 이름 단계 합계 (spring.beans.instantiate 등은 수백 번 찍힌다)
+        Map<String, long[]> byName = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent e : events) {
+            long[] acc = byName.computeIfAbsent(e.getStartupStep().getName(), k -> new long[2]);
+            acc[0]++;
+            acc[1] += e.getDuration().toNanos();
+        }
+        sb.append("\n== step totals ==\n");
+        byName.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed())
+                .forEach(e -> sb.append(String.format(Locale.ROOT, "%10.1fms %6dx  %s%n", e.getValue()[1] / 1e6, e.getValue()[0], e.getKey())));
+
+        sb.append("\n== slowest ").append(top).append(" steps ==\n");
+        events.stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(top)
+                .forEach(e -> {
+                    String tags = e.getStartupStep().getTags() == null ? "" : toString(e.getStartupStep().getTags());
+                    sb.append(String.format(Locale.ROOT, "%10.1fms  %s %s%n", e.getDuration().toNanos() / 1e6,
+                            e.getStartupStep().getName(), tags));
+                });
+        return sb.toString();
+    }
+
+    private static String toString(Iterable<StartupStep.Tag> tags) {
+        StringBuilder sb = new StringBuilder();
+        for (StartupStep.Tag tag : tags) {
+            sb.append(tag.getKey()).append('=').append(tag.getValue()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,73 @@
+package hello.springtx.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열용 Bloom filter. mightContain 이 false 면 절대 없는 값이고, true 면 fpp 확률로 틀릴 수 있다.
+ * 비트 배열은 AtomicLongArray 라 여러 스레드가 락 없이 넣고 조회할 수 있다.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong inserted = new AtomicLong();
+
+    /**
+     * @param expectedInsertions 예상 원소 수
+     * @param fpp                목표 오탐률 (0 ~ 1)
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("expectedInsertions=" + expectedInsertions + ", fpp=" + fpp);
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long h1 = Hashing.hash64(value);
+        long h2 = Hashing.mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << (index & 63);
+            bits.getAndAccumulate((int) (index >>> 6), mask, (current, m) -> current | m);
+        }
+        inserted.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = Hashing.hash64(value);
+        long h2 = Hashing.mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    /**
+     * 지금까지 넣은 개수 기준 예상 오탐률. (중복으로 넣은 값도 세므로 실제보다 약간 크게 나온다)
+     */
+    public double expectedFpp() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) inserted.get() / bitCount), hashCount);
+    }
+}
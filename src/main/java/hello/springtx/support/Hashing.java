@@ -0,0 +1,48 @@
+package hello.springtx.support;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 프로세스/JVM 이 바뀌어도 같은 값이 나와야 하는 해시. (String.hashCode 는 분산이 나쁘고 샤드 배치에 쓰기엔 너무 짧다)
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    //FNV-1a 64bit 후 murmur3 fmix64 로 섞는다.
+    public static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb53fe1a85ec3L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach). 버킷 수가 n -> n+1 로 늘면 1/(n+1) 만큼의 키만 새 버킷으로 옮겨 간다.
+     */
+    public static int jumpConsistentHash(long key, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("buckets must be positive: " + buckets);
+        }
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
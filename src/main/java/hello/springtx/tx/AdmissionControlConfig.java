@@ -0,0 +1,49 @@
+package hello.springtx.tx;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * springtx.admission.enabled=true 면 PlatformTransactionManager 빈을 AdmissionControlTransactionManager 로 감싼다.
+ * 슬롯 계산에 쓰는 풀 크기는 실제 DataSource 빈(HikariDataSource)의 maximumPoolSize 에서 읽는다.
+ * (라우팅 DataSource 면 기본 대상인 primary 풀) Hikari 가 아닐 때만 springtx.admission.pool-size 를 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    public static BeanPostProcessor admissionControlPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                  ObjectProvider<DataSource> dataSource, Environment env) {
+        return new DecoratingTransactionManagerPostProcessor(AdmissionControlTransactionManager.class,
+                txManager -> new AdmissionControlTransactionManager(txManager, meterRegistry.getObject(),
+                        poolSize(dataSource.getObject(), env),
+                        env.getProperty("springtx.admission.max-connections-per-thread", Integer.class, 2),
+                        env.getProperty("springtx.admission.max-wait", Duration.class, Duration.ZERO)));
+    }
+
+    static int poolSize(DataSource dataSource, Environment env) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            //아래 설정값으로
+        }
+        Integer poolSize = env.getProperty("springtx.admission.pool-size", Integer.class);
+        if (poolSize == null) {
+            throw new IllegalStateException("HikariDataSource 가 아니면 springtx.admission.pool-size 를 설정해야 합니다. dataSource=" + dataSource);
+        }
+        return poolSize;
+    }
+}
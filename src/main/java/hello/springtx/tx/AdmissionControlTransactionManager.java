@@ -0,0 +1,184 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * joinV1 -> LogRepository.save(REQUIRES_NEW) 처럼 요청 하나가 커넥션을 여러 개 동시에 잡는 경우,
+ * 풀의 모든 커넥션을 바깥 트랜잭션이 잡고 있으면 모든 스레드가 connectionTimeout(기본 30초)까지 멈춘다.
+ *
+ * 바깥(스레드의 첫) 물리 트랜잭션을 시작할 때 슬롯을 하나 받는다. 슬롯 수 = poolSize / maxConnectionsPerThread.
+ * 슬롯을 가진 스레드는 중첩 REQUIRES_NEW 까지 커넥션을 받을 수 있음이 보장된다.
+ * 슬롯이 없으면 maxWait 만큼 기다리고(0 이면 바로) PoolStarvationException 으로 빨리 실패한다.
+ */
+@Slf4j
+public class AdmissionControlTransactionManager implements TransactionManagerDecorator {
+
+    private final PlatformTransactionManager delegate;
+    private final int maxConnectionsPerThread;
+    private final long maxWaitNanos;
+    private final Semaphore slots;
+
+    private final Counter starvedCounter;
+    private final Counter depthExceededCounter;
+    private final Timer waitTimer;
+
+    private final ThreadLocal<Deque<Entry>> entries = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public AdmissionControlTransactionManager(PlatformTransactionManager delegate, MeterRegistry registry,
+                                              int poolSize, int maxConnectionsPerThread, Duration maxWait) {
+        if (maxConnectionsPerThread < 1 || poolSize < maxConnectionsPerThread) {
+            throw new IllegalArgumentException("poolSize=" + poolSize + " 로는 스레드당 커넥션 " + maxConnectionsPerThread + "개를 보장할 수 없습니다.");
+        }
+        this.delegate = delegate;
+        this.maxConnectionsPerThread = maxConnectionsPerThread;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.slots = new Semaphore(poolSize / maxConnectionsPerThread, true);
+
+        registry.gauge("springtx.admission.available", slots, Semaphore::availablePermits);
+        this.starvedCounter = registry.counter("springtx.admission.starved");
+        this.depthExceededCounter = registry.counter("springtx.admission.depth.exceeded");
+        this.waitTimer = registry.timer("springtx.admission.wait");
+    }
+
+    @Override
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        Deque<Entry> stack = entries.get();
+        int held = heldConnections(stack);
+
+        boolean permit = false;
+        if (startsPhysicalTransaction(def)) {
+            if (held == 0) {
+                acquire(def);
+                permit = true;
+            } else if (held + 1 > maxConnectionsPerThread) {
+                //슬롯 계산보다 깊게 중첩됨. 막지는 않지만 풀 고갈 위험이 있다.
+                depthExceededCounter.increment();
+                log.warn("스레드당 커넥션 {}개 초과 name={}", maxConnectionsPerThread, def.getName());
+            }
+        }
+
+        TransactionStatus status;
+        try {
+            status = delegate.getTransaction(definition);
+        } catch (RuntimeException | Error e) {
+            if (permit) {
+                slots.release();
+            }
+            throw e;
+        }
+        stack.push(new Entry(status, permit));
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Entry entry = pop(status);
+        try {
+            delegate.commit(status);
+        } finally {
+            release(entry);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Entry entry = pop(status);
+        try {
+            delegate.rollback(status);
+        } finally {
+            release(entry);
+        }
+    }
+
+    private void acquire(TransactionDefinition def) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = maxWaitNanos > 0 ? slots.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS) : slots.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            starvedCounter.increment();
+            throw new PoolStarvationException("커넥션 풀 여유가 없어 트랜잭션을 시작할 수 없습니다. name=" + def.getName());
+        }
+    }
+
+    private void release(Entry entry) {
+        if (entry != null && entry.permit) {
+            slots.release();
+        }
+        if (entries.get().isEmpty()) {
+            entries.remove();
+        }
+    }
+
+    //이번 getTransaction 이 새 커넥션을 잡는가
+    private static boolean startsPhysicalTransaction(TransactionDefinition def) {
+        switch (def.getPropagationBehavior()) {
+            case TransactionDefinition.PROPAGATION_REQUIRES_NEW:
+                return true;
+            case TransactionDefinition.PROPAGATION_REQUIRED:
+            case TransactionDefinition.PROPAGATION_NESTED:
+                return !TransactionSynchronizationManager.isActualTransactionActive();
+            default:
+                return false;
+        }
+    }
+
+    private static int heldConnections(Deque<Entry> stack) {
+        int held = 0;
+        for (Entry entry : stack) {
+            if (entry.status.isNewTransaction()) {
+                held++;
+            }
+        }
+        return held;
+    }
+
+    private Entry pop(TransactionStatus status) {
+        Deque<Entry> stack = entries.get();
+        for (Iterator<Entry> it = stack.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.status == status) {
+                it.remove();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static class Entry {
+        private final TransactionStatus status;
+        private final boolean permit;
+
+        Entry(TransactionStatus status, boolean permit) {
+            this.status = status;
+            this.permit = permit;
+        }
+    }
+}
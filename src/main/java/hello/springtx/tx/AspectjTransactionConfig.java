@@ -0,0 +1,21 @@
+package hello.springtx.tx;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * ./gradlew -PtxMode=aspectj ... 로 빌드하면 @Transactional 클래스가 컴파일 후에 AnnotationTransactionAspect 로 위빙된다.
+ * 이때는 프록시를 만들지 않고 위빙된 aspect 에 트랜잭션 매니저만 연결한다. (스프링 부트 기본 프록시 설정은 빠진다)
+ *
+ * 프록시가 없으니 내부 호출(CallService.external() -> internal())에도 트랜잭션이 적용된다.
+ * 위빙하지 않고 이 모드만 켜면 @Transactional 이 아무 일도 안 하므로 빌드 옵션(txMode)과 항상 같이 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.mode", havingValue = "aspectj")
+@ConditionalOnClass(name = "org.springframework.transaction.aspectj.AnnotationTransactionAspect")
+@EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+public class AspectjTransactionConfig {
+}
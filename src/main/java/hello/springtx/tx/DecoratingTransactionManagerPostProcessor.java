@@ -0,0 +1,49 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * PlatformTransactionManager 빈을 데코레이터로 바꿔 끼운다.
+ *
+ * 바꿔 끼우면 빈의 타입이 JpaTransactionManager 가 아니게 되므로, 감싼 원본을 그 구체 타입의 주입 대상으로 따로 등록한다.
+ * (@Autowired JpaTransactionManager 는 원본을 받는다. 원본은 빈 후보가 아니라서 @Transactional 의 기본 매니저는 그대로 데코레이터)
+ * 원본을 직접 쓰는 호출은 데코레이터를 거치지 않으므로 설정 조회 등에만 쓴다.
+ */
+class DecoratingTransactionManagerPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private final Class<? extends TransactionManagerDecorator> decoratorType;
+    private final UnaryOperator<PlatformTransactionManager> decorator;
+    private ConfigurableListableBeanFactory beanFactory;
+
+    DecoratingTransactionManagerPostProcessor(Class<? extends TransactionManagerDecorator> decoratorType,
+                                              UnaryOperator<PlatformTransactionManager> decorator) {
+        this.decoratorType = decoratorType;
+        this.decorator = decorator;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        if (beanFactory instanceof ConfigurableListableBeanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof PlatformTransactionManager) || decoratorType.isInstance(bean)) {
+            return bean;
+        }
+        PlatformTransactionManager txManager = (PlatformTransactionManager) bean;
+        PlatformTransactionManager target = TransactionManagerDecorator.unwrap(txManager);
+        if (beanFactory != null) {
+            beanFactory.registerResolvableDependency(target.getClass(), target);
+        }
+        return decorator.apply(txManager);
+    }
+}
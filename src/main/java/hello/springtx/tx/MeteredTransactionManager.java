@@ -0,0 +1,176 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.core.Constants;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.AbstractTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 매니저를 감싸서 begin/commit/rollback 시간, 커넥션 점유 시간(물리 트랜잭션 시작~종료),
+ * suspend/resume 횟수, rollback-only 표시, UnexpectedRollbackException 을 Micrometer 로 기록한다.
+ *
+ * - rollback.only.marked : 참여 중인 트랜잭션이 바깥 물리 트랜잭션에 rollback-only 를 표시한 횟수
+ *   (source=rollback : 내부 롤백, source=set-rollback-only : 내부에서 setRollbackOnly 후 커밋)
+ * - commit.rollback.only : 커밋을 요청했지만 rollback-only 라서 실제로는 롤백된 횟수
+ * TRACE 로그를 켜지 않고도 트랜잭션이 뭘 하는지 볼 수 있다.
+ *
+ * 태그 : name(트랜잭션 이름, 보통 클래스.메서드), propagation
+ */
+public class MeteredTransactionManager implements TransactionManagerDecorator {
+
+    static final String PREFIX = "springtx.tx.";
+
+    private static final Constants PROPAGATION = new Constants(TransactionDefinition.class);
+
+    private final PlatformTransactionManager delegate;
+    private final MeterRegistry registry;
+
+    //트랜잭션은 스레드마다 LIFO 로 열리고 닫힌다.
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public MeteredTransactionManager(PlatformTransactionManager delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        Tags tags = Tags.of("name", nameOf(def), "propagation", propagationOf(def));
+        boolean suspends = suspends(def);
+
+        long start = System.nanoTime();
+        TransactionStatus status = delegate.getTransaction(definition);
+        long begun = System.nanoTime();
+
+        registry.timer(PREFIX + "begin", tags.and("new", String.valueOf(status.isNewTransaction())))
+                .record(begun - start, TimeUnit.NANOSECONDS);
+        if (suspends) {
+            registry.counter(PREFIX + "suspend", tags).increment();
+        }
+        frames.get().push(new Frame(status, tags, start, suspends));
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Frame frame = pop(status);
+        if (frame != null && status.isRollbackOnly()) {
+            registry.counter(PREFIX + "commit.rollback.only", frame.tags).increment();
+            if (marksOuter(status) && status instanceof AbstractTransactionStatus
+                    && ((AbstractTransactionStatus) status).isLocalRollbackOnly()) {
+                registry.counter(PREFIX + "rollback.only.marked", frame.tags.and("source", "set-rollback-only")).increment();
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            delegate.commit(status);
+        } catch (UnexpectedRollbackException e) {
+            if (frame != null) {
+                registry.counter(PREFIX + "unexpected.rollback", frame.tags).increment();
+            }
+            throw e;
+        } finally {
+            complete(frame, "commit", start);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Frame frame = pop(status);
+        if (frame != null && marksOuter(status)) {
+            registry.counter(PREFIX + "rollback.only.marked", frame.tags.and("source", "rollback")).increment();
+        }
+        long start = System.nanoTime();
+        try {
+            delegate.rollback(status);
+        } finally {
+            complete(frame, "rollback", start);
+        }
+    }
+
+    private void complete(Frame frame, String outcome, long start) {
+        if (frame == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        registry.timer(PREFIX + outcome, frame.tags).record(end - start, TimeUnit.NANOSECONDS);
+        if (frame.status.isNewTransaction()) {
+            //물리 트랜잭션 = 커넥션을 잡고 있던 시간
+            registry.timer(PREFIX + "hold", frame.tags).record(end - frame.startNanos, TimeUnit.NANOSECONDS);
+        }
+        if (frame.suspended) {
+            registry.counter(PREFIX + "resume", frame.tags).increment();
+        }
+    }
+
+    private Frame pop(TransactionStatus status) {
+        Deque<Frame> stack = frames.get();
+        Frame top = stack.peek();
+        if (top != null && top.status == status) {
+            stack.pop();
+            return top;
+        }
+        //순서가 어긋난 경우 (정상적인 사용에선 없음)
+        for (Iterator<Frame> it = stack.iterator(); it.hasNext(); ) {
+            Frame frame = it.next();
+            if (frame.status == status) {
+                it.remove();
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    //참여 중인(새로 시작하지 않은) 트랜잭션이 롤백되면 바깥 물리 트랜잭션에 rollback-only 가 표시된다. (savepoint 는 제외)
+    private static boolean marksOuter(TransactionStatus status) {
+        return !status.isNewTransaction() && !status.hasSavepoint()
+                && TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private static boolean suspends(TransactionDefinition def) {
+        int propagation = def.getPropagationBehavior();
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && (propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                || propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    static String nameOf(TransactionDefinition def) {
+        return def.getName() != null ? def.getName() : "unnamed";
+    }
+
+    static String propagationOf(TransactionDefinition def) {
+        return PROPAGATION.toCode(def.getPropagationBehavior(), "PROPAGATION_").substring("PROPAGATION_".length());
+    }
+
+    private static class Frame {
+        private final TransactionStatus status;
+        private final Tags tags;
+        private final long startNanos;
+        private final boolean suspended;
+
+        Frame(TransactionStatus status, Tags tags, long startNanos, boolean suspended) {
+            this.status = status;
+            this.tags = tags;
+            this.startNanos = startNanos;
+            this.suspended = suspended;
+        }
+    }
+}
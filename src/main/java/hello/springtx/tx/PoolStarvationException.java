@@ -0,0 +1,13 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * 커넥션 풀이 최악의 경우(REQUIRES_NEW 중첩) 필요한 커넥션을 보장할 수 없어서 트랜잭션 시작을 거절했을 때.
+ */
+public class PoolStarvationException extends CannotCreateTransactionException {
+
+    public PoolStarvationException(String message) {
+        super(message);
+    }
+}
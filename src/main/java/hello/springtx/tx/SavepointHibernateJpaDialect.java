@@ -0,0 +1,119 @@
+package hello.springtx.tx;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.SavepointManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HibernateJpaDialect 는 savepoint 를 지원하지 않아서 JpaTransactionManager 로 NESTED 를 쓰면
+ * "JpaDialect does not support savepoints" 예외가 난다. 세션의 JDBC 커넥션으로 savepoint 를 걸어준다.
+ *
+ * - savepoint 를 만들기 전에 flush 해서 바깥 트랜잭션의 변경이 savepoint 앞에 있도록 하고, 그 때 관리 중인 엔티티 키를 기억한다.
+ * - savepoint 로 롤백하면 영속성 컨텍스트를 savepoint 시점으로 되돌린다.
+ *   - 아직 flush 안 된 작업(action queue)은 모두 savepoint 이후 것이므로 버린다.
+ *   - savepoint 이후에 들어온 엔티티만 detach 한다. (DB 에는 없는데 컨텍스트에만 남지 않도록)
+ *   - 그 전부터 관리하던 엔티티는 refresh 해서 savepoint 시점(= DB) 상태로 맞춘다. 계속 관리 상태라 이후 바깥 변경도 flush 된다.
+ *   savepoint 이후 flush 된 delete 로 컨텍스트에서 빠진 엔티티는 detach 된 채로 남는다.
+ *   refresh 는 관리 중인 엔티티마다 select 한 번이지만, savepoint 롤백(실패) 경로에서만 든다.
+ */
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(transactionData, entityManager.unwrap(SessionImplementor.class));
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof SavepointTransactionData) {
+            transactionData = ((SavepointTransactionData) transactionData).delegate;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private static class SavepointTransactionData implements SavepointManager {
+
+        private final Object delegate;
+        private final SessionImplementor session;
+
+        SavepointTransactionData(Object delegate, SessionImplementor session) {
+            this.delegate = delegate;
+            this.session = session;
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            try {
+                session.flush();
+                Set<EntityKey> managed = new HashSet<>();
+                for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+                    managed.add(entry.getValue().getEntityKey());
+                }
+                return new EntitySavepoint(session.doReturningWork(Connection::setSavepoint), managed);
+            } catch (RuntimeException e) {
+                throw new CannotCreateTransactionException("Could not create JDBC savepoint", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            EntitySavepoint entitySavepoint = (EntitySavepoint) savepoint;
+            try {
+                session.doWork(connection -> connection.rollback(entitySavepoint.savepoint));
+                session.getActionQueue().clear();
+                for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+                    Object entity = entry.getKey();
+                    EntityEntry entityEntry = entry.getValue();
+                    if (!entitySavepoint.managed.contains(entityEntry.getEntityKey())) {
+                        session.evict(entity);
+                        continue;
+                    }
+                    if (entityEntry.getStatus() == Status.DELETED) {
+                        //flush 전에 버려진 remove
+                        entityEntry.setStatus(Status.MANAGED);
+                    }
+                    session.refresh(entity);
+                }
+            } catch (RuntimeException e) {
+                throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.releaseSavepoint(((EntitySavepoint) savepoint).savepoint));
+            } catch (RuntimeException e) {
+                //일부 드라이버는 release 를 지원하지 않는다. 커밋/롤백 시 어차피 정리된다.
+            }
+        }
+    }
+
+    private static class EntitySavepoint {
+        private final Savepoint savepoint;
+        private final Set<EntityKey> managed;
+
+        EntitySavepoint(Savepoint savepoint, Set<EntityKey> managed) {
+            this.savepoint = savepoint;
+            this.managed = managed;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * EntityManagerFactory 가 만들어지기 전에 SavepointHibernateJpaDialect 를 끼워 넣는다.
+ * JpaTransactionManager 는 EntityManagerFactory 의 JpaDialect 를 그대로 가져다 쓴다.
+ * NESTED 감사 로그(springtx.audit-log.mode=nested)에서만 필요하므로 그 때만 끼운다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.audit-log.mode", havingValue = "nested")
+public class SavepointJpaConfig {
+
+    @Bean
+    public static BeanPostProcessor savepointJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
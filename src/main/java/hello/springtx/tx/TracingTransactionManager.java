@@ -0,0 +1,184 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * 요청(스레드)마다 논리/물리 트랜잭션 트리를 만든다. (new, participating, savepoint, suspend 된 시간 포함)
+ * 가장 바깥 트랜잭션이 끝났을 때 전체 시간이 threshold 를 넘거나 sampleRate 에 걸린 경우에만 JSON 으로 내보낸다.
+ *
+ * 평소 비용은 트랜잭션마다 노드 객체 하나 정도라서 TRACE 로그보다 훨씬 싸다.
+ */
+@Slf4j
+public class TracingTransactionManager implements TransactionManagerDecorator {
+
+    private final PlatformTransactionManager delegate;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final Consumer<String> exporter;
+
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public TracingTransactionManager(PlatformTransactionManager delegate, long thresholdNanos, double sampleRate,
+                                     Consumer<String> exporter) {
+        this.delegate = delegate;
+        this.thresholdNanos = thresholdNanos;
+        this.sampleRate = sampleRate;
+        this.exporter = exporter;
+    }
+
+    @Override
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        Deque<Frame> stack = frames.get();
+        Frame parent = stack.peek();
+
+        int propagation = def.getPropagationBehavior();
+        boolean suspends = TransactionSynchronizationManager.isActualTransactionActive()
+                && (propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                || propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+
+        long start = System.nanoTime();
+        TxTraceNode node = new TxTraceNode(MeteredTransactionManager.nameOf(def),
+                MeteredTransactionManager.propagationOf(def), start, suspends);
+        if (parent != null && suspends) {
+            parent.node.suspendStartNanos = start;
+        }
+
+        TransactionStatus status;
+        try {
+            status = delegate.getTransaction(definition);
+        } catch (RuntimeException | Error e) {
+            if (parent != null && suspends) {
+                parent.node.suspendedNanos += System.nanoTime() - start;
+            }
+            throw e;
+        }
+        node.begunNanos = System.nanoTime();
+        node.kind = kindOf(status);
+
+        if (parent != null) {
+            parent.node.children.add(node);
+        }
+        stack.push(new Frame(status, node));
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        complete(status, true);
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        complete(status, false);
+    }
+
+    private void complete(TransactionStatus status, boolean commit) {
+        Frame frame = pop(status);
+        if (frame == null) {
+            if (commit) {
+                delegate.commit(status);
+            } else {
+                delegate.rollback(status);
+            }
+            return;
+        }
+
+        TxTraceNode node = frame.node;
+        node.completingNanos = System.nanoTime();
+        boolean rollbackOnly = commit && status.isRollbackOnly();
+        try {
+            if (commit) {
+                delegate.commit(status);
+            } else {
+                delegate.rollback(status);
+            }
+            node.outcome = commit && !rollbackOnly ? "commit" : "rollback";
+        } catch (RuntimeException | Error e) {
+            node.outcome = "failed";
+            throw e;
+        } finally {
+            node.endNanos = System.nanoTime();
+            Frame parent = frames.get().peek();
+            if (parent != null && node.suspendsParent) {
+                //부모 트랜잭션 resume
+                parent.node.suspendedNanos += node.endNanos - parent.node.suspendStartNanos;
+            }
+            if (parent == null) {
+                frames.remove();
+                exportQuietly(node);
+            }
+        }
+    }
+
+    //트레이스 내보내기 실패가 커밋/롤백 결과나 원래 예외를 바꾸면 안 된다.
+    private void exportQuietly(TxTraceNode root) {
+        try {
+            export(root);
+        } catch (RuntimeException e) {
+            log.warn("트랜잭션 트레이스 내보내기 실패", e);
+        }
+    }
+
+    private void export(TxTraceNode root) {
+        boolean slow = root.totalNanos() >= thresholdNanos;
+        if (!slow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"thread\":\"").append(TxTraceNode.escape(Thread.currentThread().getName()))
+                .append("\",\"slow\":").append(slow)
+                .append(",\"tx\":");
+        root.appendJson(sb);
+        sb.append('}');
+        exporter.accept(sb.toString());
+    }
+
+    private static String kindOf(TransactionStatus status) {
+        if (status.isNewTransaction()) {
+            return "new";
+        }
+        if (status.hasSavepoint()) {
+            return "savepoint";
+        }
+        return TransactionSynchronizationManager.isActualTransactionActive() ? "participating" : "none";
+    }
+
+    private Frame pop(TransactionStatus status) {
+        Deque<Frame> stack = frames.get();
+        for (Iterator<Frame> it = stack.iterator(); it.hasNext(); ) {
+            Frame frame = it.next();
+            if (frame.status == status) {
+                it.remove();
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static class Frame {
+        private final TransactionStatus status;
+        private final TxTraceNode node;
+
+        Frame(TransactionStatus status, TxTraceNode node) {
+            this.status = status;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 다른 PlatformTransactionManager 를 감싸서 부가 기능을 붙이는 매니저. (MeteredTransactionManager 등)
+ */
+public interface TransactionManagerDecorator extends PlatformTransactionManager {
+
+    PlatformTransactionManager getDelegate();
+
+    /**
+     * 데코레이터를 모두 벗긴 실제 트랜잭션 매니저. (JpaTransactionManager 등)
+     */
+    static PlatformTransactionManager unwrap(PlatformTransactionManager txManager) {
+        PlatformTransactionManager current = txManager;
+        while (current instanceof TransactionManagerDecorator) {
+            current = ((TransactionManagerDecorator) current).getDelegate();
+        }
+        return current;
+    }
+}
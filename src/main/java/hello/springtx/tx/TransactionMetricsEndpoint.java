@@ -0,0 +1,54 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/transactions : 트랜잭션 이름별 MeteredTransactionManager 집계
+ */
+@Endpoint(id = "transactions")
+public class TransactionMetricsEndpoint {
+
+    private final MeterRegistry registry;
+
+    public TransactionMetricsEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> transactions() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            String meterName = meter.getId().getName();
+            if (!meterName.startsWith(MeteredTransactionManager.PREFIX)) {
+                continue;
+            }
+            String key = meterName.substring(MeteredTransactionManager.PREFIX.length());
+            String newTag = meter.getId().getTag("new");
+            if (newTag != null) {
+                key = key + (Boolean.parseBoolean(newTag) ? ".new" : ".participating");
+            }
+
+            Map<String, Object> tx = result.computeIfAbsent(
+                    meter.getId().getTag("name") + " " + meter.getId().getTag("propagation"), k -> new LinkedHashMap<>());
+            if (meter instanceof Timer) {
+                Timer timer = (Timer) meter;
+                tx.put(key + ".count", timer.count());
+                tx.put(key + ".meanMs", timer.mean(TimeUnit.MILLISECONDS));
+                tx.put(key + ".maxMs", timer.max(TimeUnit.MILLISECONDS));
+            } else if (meter instanceof Counter) {
+                tx.put(key, ((Counter) meter).count());
+            }
+        }
+        return result;
+    }
+}
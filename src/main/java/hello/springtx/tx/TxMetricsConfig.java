@@ -0,0 +1,29 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * springtx.tx-metrics.enabled=true 면 등록되는 모든 PlatformTransactionManager 빈을 MeteredTransactionManager 로 감싼다.
+ * (Jpa/DataSource 구분 없이 BasicTxTest 처럼 직접 등록한 매니저도 포함)
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx-metrics.enabled", havingValue = "true")
+public class TxMetricsConfig {
+
+    //BeanPostProcessor 는 static 으로 등록하고, MeterRegistry 는 지연 조회해서 다른 빈이 일찍 초기화되지 않게 한다.
+    @Bean
+    public static BeanPostProcessor meteredTransactionManagerPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DecoratingTransactionManagerPostProcessor(MeteredTransactionManager.class,
+                txManager -> new MeteredTransactionManager(txManager, meterRegistry.getObject()));
+    }
+
+    @Bean
+    public TransactionMetricsEndpoint transactionMetricsEndpoint(MeterRegistry meterRegistry) {
+        return new TransactionMetricsEndpoint(meterRegistry);
+    }
+}
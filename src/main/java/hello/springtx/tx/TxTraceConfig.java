@@ -0,0 +1,57 @@
+package hello.springtx.tx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * springtx.tx-trace.enabled=true 면 트랜잭션 매니저를 TracingTransactionManager 로 감싼다.
+ * 트리는 SLOW_TX 로거로 찍고, springtx.tx-trace.file 이 있으면 한 줄에 하나씩(JSON Lines) 파일에도 쌓는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx-trace.enabled", havingValue = "true")
+public class TxTraceConfig {
+
+    @Bean
+    public static BeanPostProcessor tracingTransactionManagerPostProcessor(Environment env) {
+        long thresholdNanos = env.getProperty("springtx.tx-trace.threshold", Duration.class, Duration.ofMillis(500)).toNanos();
+        double sampleRate = env.getProperty("springtx.tx-trace.sample-rate", Double.class, 0.0);
+        Consumer<String> exporter = exporter(env.getProperty("springtx.tx-trace.file"));
+
+        return new DecoratingTransactionManagerPostProcessor(TracingTransactionManager.class,
+                txManager -> new TracingTransactionManager(txManager, thresholdNanos, sampleRate, exporter));
+    }
+
+    private static Consumer<String> exporter(String file) {
+        Logger slowTxLog = LoggerFactory.getLogger("SLOW_TX");
+        if (file == null || file.isEmpty()) {
+            return slowTxLog::warn;
+        }
+        Path path = Paths.get(file);
+        return json -> {
+            slowTxLog.warn(json);
+            synchronized (TxTraceConfig.class) {
+                try {
+                    Files.write(path, (json + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package hello.springtx.tx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 논리 트랜잭션 하나(getTransaction ~ commit/rollback). 자식은 그 안에서 열린 트랜잭션들이다.
+ */
+class TxTraceNode {
+
+    final String name;
+    final String propagation;
+    final long startNanos;
+    final boolean suspendsParent;
+    final List<TxTraceNode> children = new ArrayList<>(2);
+
+    String kind;            //new, participating, savepoint, none
+    long begunNanos;
+    long completingNanos;
+    long endNanos;
+    String outcome;         //commit, rollback, failed
+    long suspendedNanos;    //REQUIRES_NEW 자식 때문에 멈춰 있던 시간
+    long suspendStartNanos;
+
+    TxTraceNode(String name, String propagation, long startNanos, boolean suspendsParent) {
+        this.name = name;
+        this.propagation = propagation;
+        this.startNanos = startNanos;
+        this.suspendsParent = suspendsParent;
+    }
+
+    long totalNanos() {
+        return endNanos - startNanos;
+    }
+
+    void appendJson(StringBuilder sb) {
+        sb.append("{\"name\":\"").append(escape(name)).append('"')
+                .append(",\"propagation\":\"").append(propagation).append('"')
+                .append(",\"kind\":\"").append(kind).append('"')
+                .append(",\"outcome\":\"").append(outcome).append('"')
+                .append(",\"totalMs\":").append(millis(endNanos - startNanos))
+                .append(",\"beginMs\":").append(millis(begunNanos - startNanos))
+                .append(",\"completeMs\":").append(millis(endNanos - completingNanos));
+        if (suspendedNanos > 0) {
+            sb.append(",\"suspendedMs\":").append(millis(suspendedNanos));
+        }
+        if (!children.isEmpty()) {
+            sb.append(",\"children\":[");
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                children.get(i).appendJson(sb);
+            }
+            sb.append(']');
+        }
+        sb.append('}');
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    //JSON 문자열 이스케이프. 트랜잭션 이름에는 줄바꿈 같은 제어 문자가 들어올 수 있다.
+    static String escape(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\t':
+                    replacement = "\\t";
+                    break;
+                default:
+                    replacement = c < 0x20 ? String.format(Locale.ROOT, "\\u%04x", (int) c) : null;
+            }
+            if (replacement == null) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            sb.append(replacement);
+        }
+        return sb == null ? value : sb.toString();
+    }
+}
@@ -0,0 +1,4 @@
+create table if not exists orders (id bigint primary key, username varchar(255), pay_status integer, idempotency_key varchar(255));
+create unique index if not exists uk_orders_idempotency_key on orders (idempotency_key);
+create index if not exists idx_orders_pay_status_id on orders (pay_status, id);
+create index if not exists idx_orders_username on orders (username);
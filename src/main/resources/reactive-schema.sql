@@ -0,0 +1,5 @@
+create table if not exists member (id bigint primary key, username varchar(255));
+create index if not exists idx_member_username on member (username);
+create table if not exists log (id bigint primary key, message varchar(255));
+create index if not exists idx_log_message on log (message);
+create table if not exists orders (id bigint primary key, username varchar(255), pay_status integer);
@@ -0,0 +1,42 @@
+package hello.idbench;
+
+import hello.springtx.id.SnowflakeIdentifierGenerator;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+/**
+ * IdGenerationBenchmarkTest 비교용 엔티티.
+ * hello.springtx 밖에 두어서 @SpringBootTest 의 엔티티 스캔에 잡히지 않게 한다. (벤치마크 전용 EntityManagerFactory 에만 등록)
+ */
+public class IdStrategyEntities {
+
+    //기존 방식 : @GeneratedValue 와 같은 allocationSize 1 시퀀스 (persist 마다 nextval)
+    @Entity(name = "BenchSequenceEntity")
+    public static class SequenceEntity {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_seq")
+        @SequenceGenerator(name = "bench_seq", sequenceName = "bench_seq", allocationSize = 1)
+        Long id;
+    }
+
+    //pooled 옵티마이저 : nextval 한 번에 50 개
+    @Entity(name = "BenchPooledEntity")
+    public static class PooledEntity {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_pooled_seq")
+        @SequenceGenerator(name = "bench_pooled_seq", sequenceName = "bench_pooled_seq", allocationSize = 50)
+        Long id;
+    }
+
+    @Entity(name = "BenchSnowflakeEntity")
+    public static class SnowflakeEntity {
+        @Id
+        @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+        @org.hibernate.annotations.GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
+        Long id;
+    }
+}
@@ -3,6 +3,7 @@ package hello.springtx.apply;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -19,6 +20,7 @@ public class TxBasicTest {
     BasicService basicService;
 
     @Test
+    @DisabledIfSystemProperty(named = "springtx.tx.mode", matches = "aspectj")     //위빙 모드에는 프록시가 없다
     void proxyCheck(){
         log.info("aop class={}", basicService.getClass());
 
@@ -0,0 +1,61 @@
+package hello.springtx.apply;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ./gradlew test -PtxMode=aspectj 에서만 실행. InternalCallV1Test 와 같은 구조인데 내부 호출에도 트랜잭션이 걸린다.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "springtx.tx.mode", matches = "aspectj")
+public class WovenInternalCallTest {
+
+    @Autowired
+    CallService callService;
+
+    @Test
+    void noProxy() {
+        assertThat(AopUtils.isAopProxy(callService)).isFalse();
+    }
+
+    @Test
+    void externalCall() {
+        assertThat(callService.external()).isTrue();
+    }
+
+    @Test
+    void internalCall() {
+        assertThat(callService.internal()).isTrue();
+    }
+
+    @TestConfiguration
+    static class WovenInternalCallTestConfig {
+        @Bean
+        CallService callService() {
+            return new CallService();
+        }
+    }
+
+    static class CallService {
+        public boolean external() {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+            return internal();      //this.internal() 이지만 위빙된 코드라 트랜잭션 적용
+        }
+
+        @Transactional
+        public boolean internal() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+    }
+}
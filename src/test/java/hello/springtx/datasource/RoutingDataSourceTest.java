@@ -0,0 +1,49 @@
+package hello.springtx.datasource;
+
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "springtx.datasource.routing.enabled=true")
+class RoutingDataSourceTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void readOnlyGoesToReplica() {
+        double primaryBefore = routed("primary");
+        double replicaBefore = routed("replica");
+
+        memberService.joinV1("routing");
+        assertThat(routed("primary")).isGreaterThan(primaryBefore);
+        assertThat(routed("replica")).isEqualTo(replicaBefore);
+
+        TransactionTemplate readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+        boolean found = readOnly.execute(status -> memberRepository.find("routing").isPresent());
+
+        assertThat(found).isTrue();
+        assertThat(routed("replica")).isEqualTo(replicaBefore + 1);
+    }
+
+    private double routed(String target) {
+        return meterRegistry.counter("springtx.datasource.route", "target", target).count();
+    }
+}
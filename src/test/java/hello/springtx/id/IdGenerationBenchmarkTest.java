@@ -0,0 +1,101 @@
+package hello.springtx.id;
+
+import hello.idbench.IdStrategyEntities;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * ID 전략별 insert 비용 비교. ./gradlew benchmarkTest 로만 실행된다.
+ * 시퀀스(allocationSize 1) / pooled 시퀀스(allocationSize 50) / Snowflake
+ *
+ * 비교용 엔티티는 애플리케이션 엔티티 스캔 밖(hello.idbench)에 있고, 여기서만 따로 만든 H2 와 EntityManagerFactory 에 등록한다.
+ * JPA 설정(배치 크기, 노드 번호)은 애플리케이션과 같은 spring.jpa.properties 를 쓴다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=INFO")
+class IdGenerationBenchmarkTest {
+
+    static final int ROWS = 20_000;
+    static final int CHUNK = 500;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    JpaProperties jpaProperties;
+
+    @Test
+    void compare() {
+        EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        EntityManagerFactory emf = entityManagerFactory(dataSource);
+        try {
+            TransactionTemplate txTemplate = new TransactionTemplate(new JpaTransactionManager(emf));
+            EntityManager em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+            measure("sequence", txTemplate, em, IdStrategyEntities.SequenceEntity::new);
+            measure("pooled", txTemplate, em, IdStrategyEntities.PooledEntity::new);
+            measure("snowflake", txTemplate, em, IdStrategyEntities.SnowflakeEntity::new);
+        } finally {
+            emf.close();
+            dataSource.shutdown();
+        }
+    }
+
+    private EntityManagerFactory entityManagerFactory(EmbeddedDatabase dataSource) {
+        Map<String, Object> properties = new HashMap<>(jpaProperties.getProperties());
+        properties.put("hibernate.hbm2ddl.auto", "create");
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(IdStrategyEntities.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(properties);
+        factory.setPersistenceUnitName("idbench");
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    private void measure(String name, TransactionTemplate txTemplate, EntityManager em, Supplier<Object> factory) {
+        insert(txTemplate, em, factory);    //워밍업
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            insert(txTemplate, em, factory);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        log.info("[id benchmark] {} rows={} best={}ms ({} rows/s)",
+                name, ROWS, best / 1_000_000, ROWS * 1_000_000_000L / best);
+    }
+
+    private void insert(TransactionTemplate txTemplate, EntityManager em, Supplier<Object> factory) {
+        for (int i = 0; i < ROWS; i += CHUNK) {
+            txTemplate.executeWithoutResult(status -> {
+                for (int j = 0; j < CHUNK; j++) {
+                    em.persist(factory.get());
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+    }
+}
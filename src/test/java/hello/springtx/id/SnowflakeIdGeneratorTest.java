@@ -0,0 +1,54 @@
+package hello.springtx.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void monotonic() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+
+        long prev = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(prev);
+            prev = id;
+        }
+        assertThat(SnowflakeIdGenerator.nodeOf(prev)).isEqualTo(7);
+        assertThat(SnowflakeIdGenerator.timestampOf(prev)).isCloseTo(System.currentTimeMillis(), org.assertj.core.data.Offset.offset(5_000L));
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ids).hasSize(8 * 50_000);
+    }
+
+    @Test
+    void invalidNode() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,63 @@
+package hello.springtx.order;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * build.gradle 의 hibernate enhance 로 엔티티가 바이트코드 향상되었는지, flush 때 바뀐 필드만 비교 대상인지 확인.
+ * -PhibernateEnhance=false 빌드에서는 실행하지 않는다.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "springtx.hibernate.enhance", matches = "true")
+class EntityDirtyTrackingTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void enhanced() {
+        assertThat(SelfDirtinessTracker.class).isAssignableFrom(Order.class);
+        assertThat(SelfDirtinessTracker.class).isAssignableFrom(Member.class);
+        assertThat(SelfDirtinessTracker.class).isAssignableFrom(Log.class);
+    }
+
+    @Test
+    void onlyChangedAttributeIsDirty() {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        Long id = tx.execute(status -> {
+            Order order = new Order();
+            order.setUsername("dirty_tracking");
+            order.setPayStatus(PayStatus.PENDING);
+            em.persist(order);
+            return order.getId();
+        });
+
+        tx.executeWithoutResult(status -> {
+            Order order = em.find(Order.class, id);
+            SelfDirtinessTracker tracker = (SelfDirtinessTracker) order;
+            assertThat(tracker.$$_hibernate_hasDirtyAttributes()).isFalse();
+
+            order.setPayStatus(PayStatus.COMPLETED);
+            assertThat(tracker.$$_hibernate_getDirtyAttributes()).containsExactly("payStatus");
+
+            em.flush();
+            assertThat(tracker.$$_hibernate_hasDirtyAttributes()).isFalse();
+        });
+
+        assertThat(tx.execute(status -> em.find(Order.class, id).getPayStatus())).isEqualTo(PayStatus.COMPLETED);
+    }
+}
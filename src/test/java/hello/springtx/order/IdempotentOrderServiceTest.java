@@ -0,0 +1,64 @@
+package hello.springtx.order;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotentOrderServiceTest {
+
+    @Autowired
+    IdempotentOrderService idempotentOrderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void retryReturnsOriginal() throws NotEnoughMoneyException {
+        Order first = order("정상", "key-1");
+        idempotentOrderService.order(first);
+
+        Order retry = order("정상", "key-1");
+        idempotentOrderService.order(retry);
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(retry.getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+        assertThat(orderRepository.findByIdempotencyKey("key-1")).isPresent();
+        assertThat(orderRepository.findAll()).filteredOn(o -> "key-1".equals(o.getIdempotencyKey())).hasSize(1);
+    }
+
+    @Test
+    void retryPendingThrowsAgain() {
+        Order first = order("잔고부족", "key-2");
+        assertThatThrownBy(() -> idempotentOrderService.order(first)).isInstanceOf(NotEnoughMoneyException.class);
+
+        Order retry = order("잔고부족", "key-2");
+        assertThatThrownBy(() -> idempotentOrderService.order(retry)).isInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(orderRepository.findById(first.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+    }
+
+    @Test
+    void duplicateKeyNotInCache() throws NotEnoughMoneyException {
+        //다른 인스턴스가 처리한 경우처럼 캐시를 거치지 않고 먼저 저장
+        Order other = order("정상", "key-3");
+        other.setPayStatus(PayStatus.COMPLETED);
+        orderRepository.save(other);
+
+        Order retry = order("정상", "key-3");
+        idempotentOrderService.order(retry);
+
+        assertThat(retry.getId()).isEqualTo(other.getId());
+    }
+
+    private Order order(String username, String key) {
+        Order order = new Order();
+        order.setUsername(username);
+        order.setIdempotencyKey(key);
+        return order;
+    }
+}
@@ -2,10 +2,15 @@ package hello.springtx.order;
 
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,6 +26,9 @@ class OrderServiceTest {
     @Autowired
     OrderRepository orderRepository;
 
+    @Autowired
+    EntityManagerFactory emf;
+
     @Test       //정상 승인 테스트
     void order() throws NotEnoughMoneyException {
         //given
@@ -32,7 +40,7 @@ class OrderServiceTest {
 
         //then
         Order findOrder = orderRepository.findById(order.getId()).get();
-        assertThat(findOrder.getPayStatus()).isEqualTo("완료");
+        assertThat(findOrder.getPayStatus()).isEqualTo(PayStatus.COMPLETED);
 
         //근데 내가 테이블을 만든적이 없는데? 강의자료 참고
 
@@ -71,6 +79,96 @@ class OrderServiceTest {
         //then  // 서비스 상황예외니까 커밋되어야함.
 
         Order findOrder = orderRepository.findById(order.getId()).get();
-        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+        assertThat(findOrder.getPayStatus()).isEqualTo(PayStatus.PENDING);
+    }
+
+    @Test
+    void pendingKeyset() {
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order();
+            order.setUsername("잔고부족");
+            try {
+                orderService.order(order);
+            } catch (NotEnoughMoneyException e) {
+                log.info("대기 주문 생성");
+            }
+        }
+
+        //3개씩 keyset 으로 끝까지 넘긴다.
+        List<Order> all = new ArrayList<>();
+        long lastId = Long.MIN_VALUE;
+        List<Order> page;
+        do {
+            page = orderRepository.findPendingAfter(lastId, 3);
+            all.addAll(page);
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 3);
+
+        assertThat(all).hasSize((int) orderRepository.countByPayStatus(PayStatus.PENDING));
+        assertThat(all).allMatch(o -> o.getPayStatus() == PayStatus.PENDING);
+        assertThat(all).extracting(Order::getId).isSorted();
+    }
+
+    @Test
+    void orderResult() {
+        Order completed = new Order();
+        completed.setUsername("정상");
+        Order pending = new Order();
+        pending.setUsername("잔고부족");
+        Order failed = new Order();
+        failed.setUsername("예외");
+
+        assertThat(orderService.orderResult(completed).getStatus()).isEqualTo(OrderResult.Status.COMPLETED);
+        assertThat(orderService.orderResult(pending).getStatus()).isEqualTo(OrderResult.Status.PENDING_INSUFFICIENT_FUNDS);
+        OrderResult failedResult = orderService.orderResult(failed);
+        assertThat(failedResult.getStatus()).isEqualTo(OrderResult.Status.FAILED);
+        assertThat(failedResult.isCommitted()).isFalse();
+
+        assertThat(orderRepository.findById(completed.getId()).get().getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+        assertThat(orderRepository.findById(pending.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+        assertThat(orderRepository.findById(failed.getId())).isEmpty();
+    }
+
+    @Test
+    void bizExceptionStackless() {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        Assertions.assertThatThrownBy(() -> orderService.order(order))
+                .isInstanceOfSatisfying(NotEnoughMoneyException.class, e -> assertThat(e.getStackTrace()).isEmpty());
+    }
+
+    //결제 상태를 정한 뒤 저장하므로 주문 하나에 SQL 은 INSERT 하나. (예외는 롤백이라 0개)
+    @Test
+    void singleStatementPerOrder() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        //컨텍스트를 다른 테스트와 같이 쓰므로 원래 설정으로 되돌린다
+        boolean enabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            assertStatements(statistics, "정상", 1);
+            assertStatements(statistics, "잔고부족", 1);
+            assertStatements(statistics, "예외", 0);
+        } finally {
+            statistics.setStatisticsEnabled(enabled);
+        }
+    }
+
+    private void assertStatements(Statistics statistics, String username, long expected) {
+        Order order = new Order();
+        order.setUsername(username);
+        statistics.clear();
+
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException | RuntimeException e) {
+            log.info("주문 결과 username={}, {}", username, e.getMessage());
+        }
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(expected);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
     }
-}
\ No newline at end of file
+}
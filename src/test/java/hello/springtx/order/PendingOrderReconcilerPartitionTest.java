@@ -0,0 +1,82 @@
+package hello.springtx.order;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 기본 파티션 수(4, 2의 거듭제곱)에서도 Snowflake id 가 워커에 고르게 나뉘는지 확인한다.
+ */
+@SpringBootTest(properties = "springtx.order.reconcile.chunk-size=4")
+class PendingOrderReconcilerPartitionTest {
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    PendingOrderReconciler reconciler;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void spreadAcrossWorkers() {
+        for (int i = 0; i < 40; i++) {
+            Order order = new Order();
+            order.setUsername("잔고부족");
+            try {
+                orderService.order(order);
+            } catch (NotEnoughMoneyException e) {
+                //대기 상태로 커밋됨
+            }
+        }
+        long pending = orderRepository.countByPayStatus(PayStatus.PENDING);
+
+        Map<String, LongAdder> perWorker = new ConcurrentHashMap<>();
+        ReconcileReport report = reconciler.reconcile(order -> {
+            perWorker.computeIfAbsent(Thread.currentThread().getName(), name -> new LongAdder()).increment();
+            return PayStatus.PENDING;
+        });
+
+        assertThat(reconciler.getPartitions()).isEqualTo(4);
+        assertThat(report.getScanned()).isEqualTo(pending);
+        assertThat(perWorker).hasSize(4);
+        //건수가 같은 구간으로 나누므로 워커마다 floor(pending / 4) 건 이상
+        assertThat(perWorker.values()).allSatisfy(count ->
+                assertThat(count.sum()).isGreaterThanOrEqualTo(pending / 4));
+    }
+
+    @Test
+    void partitionsCappedByPoolSize() throws Exception {
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+
+        PendingOrderReconciler oversized = new PendingOrderReconciler(emf, em, txManager, dataSource, poolSize * 2, 4, 10);
+
+        //워커 하나가 커서용, 청크 커밋용 커넥션을 동시에 잡는다
+        assertThat(oversized.getPartitions()).isEqualTo(Math.max(1, poolSize / 2));
+    }
+}
@@ -0,0 +1,60 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.order.reconcile.partitions=3",
+        "springtx.order.reconcile.chunk-size=4"
+})
+class PendingOrderReconcilerTest {
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    PendingOrderReconciler reconciler;
+
+    @Test
+    void reconcile() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Order order = new Order();
+            order.setUsername("잔고부족");
+            try {
+                orderService.order(order);
+            } catch (NotEnoughMoneyException e) {
+                ids.add(order.getId());
+            }
+        }
+        long pending = orderRepository.countByPayStatus(PayStatus.PENDING);
+
+        //짝수 id 만 입금 확인되었다고 가정
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ReconcileReport report = reconciler.reconcile(order -> {
+            seen.add(order.getId());
+            return order.getId() % 2 == 0 ? PayStatus.COMPLETED : PayStatus.PENDING;
+        });
+
+        assertThat(report.getScanned()).isEqualTo(pending);
+        assertThat(seen).containsAll(ids);
+        for (Long id : ids) {
+            PayStatus expected = id % 2 == 0 ? PayStatus.COMPLETED : PayStatus.PENDING;
+            assertThat(orderRepository.findById(id).get().getPayStatus()).isEqualTo(expected);
+        }
+        assertThat(orderRepository.countByPayStatus(PayStatus.PENDING)).isEqualTo(pending - report.getCompleted());
+    }
+}
@@ -0,0 +1,76 @@
+package hello.springtx.order;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "springtx.order.executor.enabled=true",
+        "springtx.order.executor.stripes=4"
+})
+class StripedOrderExecutorTest {
+
+    @Autowired
+    StripedOrderExecutor executor;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void sameUserInOrder() throws Exception {
+        List<CompletableFuture<Order>> userA = new ArrayList<>();
+        List<CompletableFuture<Order>> all = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            CompletableFuture<Order> a = executor.submit(order("striped_a"));
+            userA.add(a);
+            all.add(a);
+            all.add(executor.submit(order("striped_" + i)));
+        }
+        CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        //같은 stripe 에서 순서대로 처리되었으므로 id(시간순)도 제출 순서대로 증가
+        List<Long> ids = new ArrayList<>();
+        for (CompletableFuture<Order> future : userA) {
+            ids.add(future.get().getId());
+        }
+        assertThat(ids).isSorted();
+        assertThat(orderRepository.findAllById(ids)).allMatch(o -> o.getPayStatus() == PayStatus.COMPLETED);
+    }
+
+    @Test
+    void bizExceptionStillCommitted() {
+        Order order = order("잔고부족");
+        CompletableFuture<Order> future = executor.submit(order);
+
+        assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NotEnoughMoneyException.class);
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+    }
+
+    @Test
+    void usersSpreadAcrossStripes() {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            used.add(executor.stripeOf("striped_" + i));
+        }
+        assertThat(used).hasSize(executor.stripeCount());
+    }
+
+    private Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,123 @@
+package hello.springtx.order.shard;
+
+import hello.springtx.id.SnowflakeIdGenerator;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.PayStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "springtx.order.sharding.enabled=true")
+class ShardedOrderServiceTest {
+
+    @Autowired
+    ShardedOrderService shardedOrderService;
+
+    @Autowired
+    OrderShards orderShards;
+
+    @Test
+    void order() throws NotEnoughMoneyException {
+        Order order = order("정상");
+        shardedOrderService.order(order);
+
+        OrderShard shard = orderShards.shardFor("정상");
+        assertThat(shard.findById(order.getId()).get().getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+        assertThat(shardedOrderService.findById(order.getId())).isPresent();
+    }
+
+    @Test
+    void runtimeException() {
+        Order order = order("예외");
+
+        assertThatThrownBy(() -> shardedOrderService.order(order)).isInstanceOf(RuntimeException.class);
+
+        assertThat(shardedOrderService.findById(order.getId())).isEmpty();
+    }
+
+    @Test
+    void bizException() {
+        Order order = order("잔고부족");
+
+        assertThatThrownBy(() -> shardedOrderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(orderShards.shardFor("잔고부족").findById(order.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+    }
+
+    @Test
+    void scatterGather() throws NotEnoughMoneyException {
+        long pendingBefore = shardedOrderService.countByPayStatus(PayStatus.PENDING);
+        for (int i = 0; i < 20; i++) {
+            shardedOrderService.order(order("scatter_" + i));
+            try {
+                shardedOrderService.order(order("잔고부족"));
+            } catch (NotEnoughMoneyException e) {
+                //대기 주문
+            }
+        }
+
+        assertThat(shardedOrderService.countByPayStatus(PayStatus.PENDING)).isEqualTo(pendingBefore + 20);
+        assertThat(orderShards.all()).filteredOn(shard -> shard.count() > 0).hasSizeGreaterThan(1);
+
+        List<Order> page = shardedOrderService.findPendingAfter(Long.MIN_VALUE, 5);
+        assertThat(page).hasSize(5);
+        assertThat(page).extracting(Order::getId).isSorted();
+        assertThat(shardedOrderService.findByUsername("scatter_3")).hasSize(1);
+    }
+
+    @Test
+    void jumpHashMovesOnlyToNewShard() {
+        for (int i = 0; i < 1000; i++) {
+            String username = "user_" + i;
+            int before = OrderShards.indexFor(username, 4);
+            int after = OrderShards.indexFor(username, 5);
+            assertThat(after).isIn(before, 4);
+        }
+    }
+
+    @Test
+    void rebalance() throws NotEnoughMoneyException {
+        String url = "jdbc:h2:mem:springtx-rebalance-%d;DB_CLOSE_DELAY=-1";
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1);
+
+        OrderShards two = new OrderShards(url, 2, 2, "sa", "", registry);
+        ShardedOrderService service = new ShardedOrderService(two, idGenerator);
+        for (int i = 0; i < 200; i++) {
+            service.order(order("rebalance_" + i));
+        }
+        two.close();
+
+        OrderShards three = new OrderShards(url, 3, 2, "sa", "", registry);
+        try {
+            RebalanceReport report = new OrderShardRebalancer(three, 50).rebalance();
+
+            //새 샤드로 옮겨 간 주문은 다시 읽지 않는다
+            assertThat(report.getScanned()).isEqualTo(200);
+            assertThat(report.getMoved()).isGreaterThan(0).isLessThan(200);
+            assertThat(three.all().stream().mapToLong(OrderShard::count).sum()).isEqualTo(200);
+            for (int i = 0; i < 200; i++) {
+                assertThat(three.shardFor("rebalance_" + i).findByUsername("rebalance_" + i)).hasSize(1);
+            }
+            //다시 돌려도 옮길 게 없다
+            RebalanceReport again = new OrderShardRebalancer(three, 50).rebalance();
+            assertThat(again.getScanned()).isEqualTo(200);
+            assertThat(again.getMoved()).isZero();
+        } finally {
+            three.close();
+        }
+    }
+
+    private static Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,58 @@
+package hello.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "springtx.audit-log.mode=async")
+class AsyncAuditLogWriterTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    LogRepository logRepository;
+
+    @Autowired
+    AsyncAuditLogWriter auditLogWriter;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void groupCommit() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            memberService.joinV3("async_" + i);
+        }
+
+        assertTrue(auditLogWriter.awaitFlushed(Duration.ofSeconds(5)));
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(memberRepository.find("async_" + i).isPresent());
+            assertTrue(logRepository.find("async_" + i).isPresent());
+        }
+    }
+
+    @Test
+    void outerRollback_noLog() throws InterruptedException {
+        //회원 트랜잭션이 롤백되면 afterCommit 이 호출되지 않으니 로그도 큐에 들어가지 않는다.
+        String username = "async_rollback";
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberService.joinV3(username);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(auditLogWriter.awaitFlushed(Duration.ofSeconds(5)));
+        assertTrue(memberRepository.find(username).isEmpty());
+        assertTrue(logRepository.find(username).isEmpty());
+    }
+}
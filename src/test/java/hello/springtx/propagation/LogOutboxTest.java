@@ -0,0 +1,67 @@
+package hello.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//poll-interval 을 길게 줘서 테스트에서 drain() 을 직접 호출한다.
+@SpringBootTest(properties = {
+        "springtx.audit-log.mode=outbox",
+        "springtx.audit-log.outbox.batch-size=7",
+        "springtx.audit-log.outbox.poll-interval=1h"
+})
+class LogOutboxTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    LogRepository logRepository;
+
+    @Autowired
+    LogOutboxRepository logOutboxRepository;
+
+    @Autowired
+    LogOutboxDrainer drainer;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void drainInBatches() {
+        for (int i = 0; i < 20; i++) {
+            memberService.joinV3("outbox_" + i);
+        }
+        assertTrue(logRepository.find("outbox_0").isEmpty());
+
+        int drained = drainer.drain();
+
+        assertThat(drained).isGreaterThanOrEqualTo(20);
+        assertThat(logOutboxRepository.count()).isZero();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(logRepository.find("outbox_" + i).isPresent());
+        }
+    }
+
+    @Test
+    void rollbackTogether() {
+        String username = "outbox_rollback";
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberService.joinV3(username);
+            status.setRollbackOnly();
+        });
+
+        drainer.drain();
+
+        assertTrue(memberRepository.find(username).isEmpty());
+        assertTrue(logRepository.find(username).isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class MemberCacheTest {
+
+    @Autowired
+    MemberCache memberCache;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void invalidateOnCommit() {
+        String username = "cache_invalidate";
+        assertTrue(memberCache.find(username).isEmpty());  //없음도 캐시됨
+
+        memberService.joinV1(username);
+
+        //커밋 후 이벤트로 캐시에서 지워졌으므로 다시 읽으면 보인다.
+        assertTrue(memberCache.find(username).isPresent());
+    }
+
+    @Test
+    void noPhantomAfterRollback() {
+        String username = "cache_phantom";
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberService.joinV1(username);
+            //같은 트랜잭션 안에서는 보이지만 캐시에는 아직 안 들어간다.
+            assertTrue(memberCache.find(username).isPresent());
+            status.setRollbackOnly();
+        });
+
+        assertTrue(memberCache.find(username).isEmpty());
+    }
+
+    @Test
+    void ownWriteVisibleInTransaction() {
+        String username = "cache_own_write";
+        //bloom 오탐을 흉내 낸다. (회원 없이 bloom 에만 들어감) 그래야 트랜잭션 밖 조회가 DB 까지 가서 empty 를 캐시한다.
+        new TransactionTemplate(txManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(new MemberSavedEvent(List.of(username))));
+        assertTrue(memberService.findMember(username).isEmpty());
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberService.joinV1(username);
+            //캐시의 empty 가 아니라 방금 저장한 회원이 보여야 한다.
+            assertTrue(memberService.findMember(username).isPresent());
+        });
+
+        assertTrue(memberService.findMember(username).isPresent());
+    }
+
+    @Test
+    void noStaleEmptyAfterConcurrentJoin() {
+        String username = "cache_stale_empty";
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            new TransactionTemplate(txManager).executeWithoutResult(status -> {
+                //읽기 트랜잭션이 empty 를 읽고 afterCommit 에 넣으려고 기다리는 사이
+                assertTrue(memberCache.find(username).isEmpty());
+                //다른 트랜잭션이 가입을 커밋하고 캐시를 지운다.
+                try {
+                    other.submit(() -> memberService.joinV1(username)).get();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            other.shutdown();
+        }
+
+        //읽기 트랜잭션의 afterCommit 이 낡은 empty 를 다시 넣으면 안 된다.
+        assertTrue(memberCache.find(username).isPresent());
+    }
+
+    @Test
+    void hit() {
+        String username = "cache_hit";
+        memberService.joinV1(username);
+        double hitsBefore = meterRegistry.get("cache.gets").tag("cache", "member").tag("result", "hit").functionCounter().count();
+
+        memberCache.find(username);
+        memberCache.find(username);
+
+        double hits = meterRegistry.get("cache.gets").tag("cache", "member").tag("result", "hit").functionCounter().count();
+        assertThat(hits - hitsBefore).isEqualTo(1);
+    }
+}
@@ -7,6 +7,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.UnexpectedRollbackException;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +44,19 @@ class MemberServiceTest {
         assertTrue(logRepository.find(username).isPresent());
     }
 
+    @Test
+    void findDto(){
+        String username = "findDto";
+
+        memberService.joinV1(username);
+
+        MemberDto member = memberRepository.findDto(username).get();
+        assertThat(member.getUsername()).isEqualTo(username);
+        assertThat(member.getId()).isEqualTo(memberRepository.find(username).get().getId());
+        assertTrue(logRepository.findDto(username).isPresent());
+        assertTrue(memberRepository.findDto("findDto_none").isEmpty());
+    }
+
     /**
      * memberService        @Transactional :OFF
      * memberRepository      @Transactional :ON
@@ -170,8 +187,41 @@ class MemberServiceTest {
         org.junit.jupiter.api.Assertions.assertTrue(logRepository.find(username).isEmpty());
 
     }
-}
-
-
 
+    /**
+     * joinAll : 청크 단위 커밋
+     * 2번째 청크에 로그예외가 있으면 그 청크만 롤백되고 나머지 청크는 커밋된다.
+     */
+    @Test
+    void joinAll_partialFailure() {
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            usernames.add("bulk_" + i);
+        }
+        usernames.set(15, "로그예외_bulk_15");
+
+        BulkJoinResult result = memberService.joinAll(usernames, 10);
+
+        assertThat(result.getJoined()).isEqualTo(20);
+        assertThat(result.getFailures()).hasSize(1);
+        assertThat(result.getFailures().get(0).getChunkIndex()).isEqualTo(1);
+
+        assertTrue(memberRepository.find("bulk_0").isPresent());
+        assertTrue(logRepository.find("bulk_29").isPresent());
+        assertTrue(memberRepository.find("bulk_10").isEmpty());
+        assertTrue(memberRepository.find("로그예외_bulk_15").isEmpty());
+    }
 
+    @Test
+    void joinAll_invalidChunkSize() {
+        List<String> usernames = List.of("bulk_invalid");
+
+        assertThatThrownBy(() -> memberService.joinAll(usernames, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("chunkSize");
+        assertThatThrownBy(() -> memberService.joinAll(usernames, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("chunkSize");
+        assertTrue(memberRepository.find("bulk_invalid").isEmpty());
+    }
+}
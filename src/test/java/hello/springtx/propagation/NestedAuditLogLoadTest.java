@@ -0,0 +1,88 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 풀 크기 N, 동시 요청 N.
+ * REQUIRES_NEW 였다면 N 개의 바깥 트랜잭션이 커넥션을 다 잡은 채 로그용 커넥션을 기다리며 connectionTimeout 까지 멈춘다.
+ * NESTED 는 요청당 커넥션 하나라서 타임아웃 없이 모두 끝나야 한다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.audit-log.mode=nested",
+        "spring.datasource.hikari.maximum-pool-size=" + NestedAuditLogLoadTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=1000",
+        "logging.level.org.springframework.transaction.interceptor=INFO",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO",
+        "logging.level.org.hibernate.SQL=INFO"
+})
+class NestedAuditLogLoadTest {
+
+    static final int POOL_SIZE = 4;
+    static final int REQUESTS_PER_THREAD = 50;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    LogRepository logRepository;
+
+    @Test
+    void savepointRollback() {
+        String username = "로그예외_nested";
+
+        memberService.joinV3(username);
+
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    @Test
+    void noPoolStarvation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+        CyclicBarrier barrier = new CyclicBarrier(POOL_SIZE);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < POOL_SIZE; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                barrier.await();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    //4건 중 1건은 로그 저장 실패
+                    String prefix = i % 4 == 0 ? "로그예외_" : "";
+                    memberService.joinV3(prefix + "nested_" + thread + "_" + i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);   //커넥션 타임아웃이 나면 여기서 ExecutionException
+        }
+        executor.shutdown();
+        log.info("nested load {} requests in {}ms", POOL_SIZE * REQUESTS_PER_THREAD,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertTrue(memberRepository.find("nested_0_1").isPresent());
+        assertTrue(logRepository.find("nested_0_1").isPresent());
+        assertTrue(memberRepository.find("로그예외_nested_0_0").isPresent());
+        assertThat(logRepository.find("로그예외_nested_0_0")).isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.PayStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "springtx.reactive.enabled=true")
+class ReactiveServiceTest {
+
+    @Autowired
+    ReactiveOrderService orderService;
+
+    @Autowired
+    ReactiveMemberService memberService;
+
+    @Test
+    void order() {
+        Order order = order("정상");
+
+        orderService.order(order).block();
+
+        assertThat(orderService.findById(order.getId()).block().getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+    }
+
+    @Test
+    void runtimeException() {
+        Order order = order("예외");
+
+        assertThatThrownBy(() -> orderService.order(order).block()).isInstanceOf(RuntimeException.class);
+
+        assertThat(orderService.findById(order.getId()).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void bizException() {
+        Order order = order("잔고부족");
+
+        //block() 은 체크 예외를 RuntimeException 으로 감싸서 던진다.
+        assertThatThrownBy(() -> orderService.order(order).block())
+                .hasCauseInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(orderService.findById(order.getId()).block().getPayStatus()).isEqualTo(PayStatus.PENDING);
+    }
+
+    @Test
+    void join() {
+        memberService.join("reactive_join").block();
+
+        assertThat(memberService.memberExists("reactive_join").block()).isTrue();
+        assertThat(memberService.logExists("reactive_join").block()).isTrue();
+    }
+
+    @Test
+    void join_logFailure() {
+        String username = "로그예외_reactive";
+
+        memberService.join(username).block();
+
+        assertThat(memberService.memberExists(username).block()).isTrue();
+        assertThat(memberService.logExists(username).block()).isFalse();
+    }
+
+    private Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
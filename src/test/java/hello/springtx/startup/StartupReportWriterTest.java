@@ -0,0 +1,30 @@
+package hello.springtx.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupReportWriterTest {
+
+    @Test
+    void format() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        StartupStep refresh = startup.start("spring.context.refresh");
+        for (int i = 0; i < 3; i++) {
+            startup.start("spring.beans.instantiate").tag("beanName", "bean" + i).end();
+        }
+        refresh.end();
+
+        String report = StartupReportWriter.format(startup.getBufferedTimeline(), Duration.ofMillis(1234), 2000,
+                new String[]{"fast-startup"}, 2);
+
+        assertThat(report).startsWith("profiles=fast-startup ready=1234ms jvmUptime=2000ms steps=4");
+        assertThat(report).contains("3x  spring.beans.instantiate");
+        assertThat(report).contains("1x  spring.context.refresh");
+        assertThat(report).contains("== slowest 2 steps ==");
+    }
+}
@@ -0,0 +1,39 @@
+package hello.springtx.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegative() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user_" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user_" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user_" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent_" + i)) {
+                falsePositives++;
+            }
+        }
+        //목표 1%, 여유를 두고 2% 미만
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFpp()).isLessThan(0.02);
+        //n=10000, p=0.01 -> 약 95851 bit = 12KB
+        assertThat(filter.sizeInBytes()).isBetween(11_000L, 13_000L);
+    }
+}
@@ -0,0 +1,29 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "springtx.admission.enabled=true",
+        "springtx.datasource.routing.enabled=true",
+        "springtx.datasource.primary.maximum-pool-size=6"})
+class AdmissionControlConfigTest {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    //spring.datasource.hikari.* 가 아니라 실제 primary 풀 크기 6 / 스레드당 2
+    @Test
+    void slotsFromActualPool() {
+        assertThat(txManager).isInstanceOf(AdmissionControlTransactionManager.class);
+        assertThat(meterRegistry.get("springtx.admission.available").gauge().value()).isEqualTo(3);
+    }
+}
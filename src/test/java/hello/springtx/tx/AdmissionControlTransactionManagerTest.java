@@ -0,0 +1,74 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AdmissionControlTransactionManagerTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void rejectWhenNoSlot() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        //풀 2, 스레드당 2 -> 슬롯 1개
+        AdmissionControlTransactionManager tm = new AdmissionControlTransactionManager(
+                new DataSourceTransactionManager(dataSource), registry, 2, 2, Duration.ZERO);
+
+        TransactionStatus outer = tm.getTransaction(new DefaultTransactionDefinition());
+
+        //같은 스레드의 REQUIRES_NEW 는 슬롯 안에서 허용
+        TransactionStatus inner = tm.getTransaction(new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        tm.commit(inner);
+
+        //다른 스레드의 바깥 트랜잭션은 바로 거절
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            TransactionStatus status = tm.getTransaction(new DefaultTransactionDefinition());
+            tm.commit(status);
+        });
+        assertThatThrownBy(() -> other.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(PoolStarvationException.class);
+        assertThat(registry.get("springtx.admission.starved").counter().count()).isEqualTo(1);
+
+        tm.commit(outer);
+
+        //슬롯 반납 후에는 다시 가능
+        CompletableFuture.runAsync(() -> {
+            TransactionStatus status = tm.getTransaction(new DefaultTransactionDefinition());
+            tm.commit(status);
+        }).get(5, TimeUnit.SECONDS);
+        assertThat(registry.get("springtx.admission.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void depthExceeded() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlTransactionManager tm = new AdmissionControlTransactionManager(
+                new DataSourceTransactionManager(dataSource), registry, 4, 2, Duration.ZERO);
+        DefaultTransactionDefinition requiresNew = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        TransactionStatus s1 = tm.getTransaction(new DefaultTransactionDefinition());
+        TransactionStatus s2 = tm.getTransaction(requiresNew);
+        TransactionStatus s3 = tm.getTransaction(requiresNew);
+        tm.commit(s3);
+        tm.commit(s2);
+        tm.commit(s1);
+
+        assertThat(registry.get("springtx.admission.depth.exceeded").counter().count()).isEqualTo(1);
+    }
+}
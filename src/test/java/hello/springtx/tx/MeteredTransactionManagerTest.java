@@ -0,0 +1,92 @@
+package hello.springtx.tx;
+
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "springtx.tx-metrics.enabled=true")
+class MeteredTransactionManagerTest {
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    JpaTransactionManager jpaTransactionManager;
+
+    @Test
+    void wrapped() {
+        assertThat(txManager).isInstanceOf(MeteredTransactionManager.class);
+        //감싼 원본도 구체 타입으로 주입받을 수 있다
+        assertThat(TransactionManagerDecorator.unwrap(txManager)).isSameAs(jpaTransactionManager);
+    }
+
+    @Test
+    void suspendResume() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MeteredTransactionManager tm = new MeteredTransactionManager(new DataSourceTransactionManager(dataSource), registry);
+
+        TransactionStatus outer = tm.getTransaction(new DefaultTransactionDefinition());
+        DefaultTransactionDefinition innerDef = new DefaultTransactionDefinition(DefaultTransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionStatus inner = tm.getTransaction(innerDef);
+        tm.commit(inner);
+        tm.commit(outer);
+
+        assertThat(registry.get("springtx.tx.suspend").tag("propagation", "REQUIRES_NEW").counter().count()).isEqualTo(1);
+        assertThat(registry.get("springtx.tx.resume").tag("propagation", "REQUIRES_NEW").counter().count()).isEqualTo(1);
+        assertThat(registry.get("springtx.tx.hold").timers()).hasSize(2);
+        assertThat(registry.get("springtx.tx.commit").tag("propagation", "REQUIRED").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void unexpectedRollback() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MeteredTransactionManager tm = new MeteredTransactionManager(new DataSourceTransactionManager(dataSource), registry);
+
+        TransactionStatus outer = tm.getTransaction(new DefaultTransactionDefinition());
+        TransactionStatus inner = tm.getTransaction(new DefaultTransactionDefinition());
+        tm.rollback(inner);     //rollback-only 표시
+
+        assertThatThrownBy(() -> tm.commit(outer)).isInstanceOf(UnexpectedRollbackException.class);
+
+        assertThat(registry.get("springtx.tx.rollback.only.marked").tag("source", "rollback").counter().count()).isEqualTo(1);
+        assertThat(registry.get("springtx.tx.commit.rollback.only").counter().count()).isEqualTo(1);
+        assertThat(registry.get("springtx.tx.unexpected.rollback").counter().count()).isEqualTo(1);
+        assertThat(registry.get("springtx.tx.hold").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void setRollbackOnlyMark() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MeteredTransactionManager tm = new MeteredTransactionManager(new DataSourceTransactionManager(dataSource), registry);
+
+        TransactionStatus outer = tm.getTransaction(new DefaultTransactionDefinition());
+        TransactionStatus inner = tm.getTransaction(new DefaultTransactionDefinition());
+        inner.setRollbackOnly();
+        tm.commit(inner);
+
+        assertThatThrownBy(() -> tm.commit(outer)).isInstanceOf(UnexpectedRollbackException.class);
+
+        assertThat(registry.get("springtx.tx.rollback.only.marked").tag("source", "set-rollback-only").counter().count()).isEqualTo(1);
+        assertThat(registry.get("springtx.tx.commit.rollback.only").counter().count()).isEqualTo(2);
+    }
+}
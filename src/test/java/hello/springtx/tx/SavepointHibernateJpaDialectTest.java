@@ -0,0 +1,59 @@
+package hello.springtx.tx;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "springtx.audit-log.mode=nested")
+class SavepointHibernateJpaDialectTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    //NESTED 롤백 후에도 바깥 엔티티는 관리 상태라 그 뒤 변경이 커밋된다
+    @Test
+    void outerChangeAfterNestedRollbackIsFlushed() {
+        TransactionTemplate outer = new TransactionTemplate(txManager);
+        TransactionTemplate nested = new TransactionTemplate(txManager);
+        nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        Member member = new Member("savepoint_outer");
+        Member before = new Member("savepoint_before");
+        outer.executeWithoutResult(status -> {
+            em.persist(member);
+            em.persist(before);
+
+            assertThatThrownBy(() -> nested.executeWithoutResult(nestedStatus -> {
+                em.persist(new Log("savepoint_nested"));
+                before.setUsername("savepoint_before_nested");
+                em.flush();
+                throw new IllegalStateException("nested 실패");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThat(em.contains(member)).isTrue();
+            assertThat(before.getUsername()).isEqualTo("savepoint_before");     //savepoint 시점으로 refresh
+            member.setUsername("savepoint_outer_changed");
+        });
+
+        assertThat(count("select count(m) from Member m where m.username = 'savepoint_outer_changed'")).isEqualTo(1);
+        assertThat(count("select count(m) from Member m where m.username = 'savepoint_before'")).isEqualTo(1);
+        assertThat(count("select count(l) from Log l where l.message = 'savepoint_nested'")).isZero();
+    }
+
+    private long count(String jpql) {
+        return new TransactionTemplate(txManager).execute(status -> em.createQuery(jpql, Long.class).getSingleResult());
+    }
+}
@@ -0,0 +1,112 @@
+package hello.springtx.tx;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+@SpringBootTest
+class TracingTransactionManagerTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void slowTree() {
+        List<String> exported = new ArrayList<>();
+        TracingTransactionManager tm = new TracingTransactionManager(new DataSourceTransactionManager(dataSource), 0, 0.0, exported::add);
+
+        TransactionStatus outer = tm.getTransaction(new DefaultTransactionDefinition());
+        TransactionStatus inner1 = tm.getTransaction(new DefaultTransactionDefinition());
+        tm.commit(inner1);
+        TransactionStatus inner2 = tm.getTransaction(new DefaultTransactionDefinition(DefaultTransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        tm.rollback(inner2);
+        tm.commit(outer);
+
+        assertThat(exported).hasSize(1);
+        String json = exported.get(0);
+        assertThat(json).contains("\"slow\":true");
+        assertThat(json).contains("\"propagation\":\"REQUIRED\",\"kind\":\"new\",\"outcome\":\"commit\"");
+        assertThat(json).contains("\"kind\":\"participating\",\"outcome\":\"commit\"");
+        assertThat(json).contains("\"propagation\":\"REQUIRES_NEW\",\"kind\":\"new\",\"outcome\":\"rollback\"");
+        assertThat(json).contains("\"suspendedMs\":");
+    }
+
+    @Test
+    void fastNotSampled() {
+        List<String> exported = new ArrayList<>();
+        TracingTransactionManager tm = new TracingTransactionManager(new DataSourceTransactionManager(dataSource), Long.MAX_VALUE, 0.0, exported::add);
+
+        tm.commit(tm.getTransaction(new DefaultTransactionDefinition()));
+
+        assertThat(exported).isEmpty();
+    }
+
+    @Test
+    void sampled() {
+        List<String> exported = new ArrayList<>();
+        TracingTransactionManager tm = new TracingTransactionManager(new DataSourceTransactionManager(dataSource), Long.MAX_VALUE, 1.0, exported::add);
+
+        tm.commit(tm.getTransaction(new DefaultTransactionDefinition()));
+
+        assertThat(exported).hasSize(1);
+        assertThat(exported.get(0)).contains("\"slow\":false");
+    }
+
+    @Test
+    void exporterFailureDoesNotChangeOutcome() {
+        TracingTransactionManager tm = new TracingTransactionManager(new DataSourceTransactionManager(dataSource), 0, 0.0,
+                json -> {
+                    throw new UncheckedIOException(new IOException("disk full"));
+                });
+
+        assertThatCode(() -> tm.commit(tm.getTransaction(new DefaultTransactionDefinition()))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void escapedThreadNameAndRootLocale() throws Exception {
+        List<String> exported = new ArrayList<>();
+        TracingTransactionManager tm = new TracingTransactionManager(new DataSourceTransactionManager(dataSource), 0, 0.0, exported::add);
+        Locale locale = Locale.getDefault();
+        Thread thread = new Thread(() -> tm.commit(tm.getTransaction(new DefaultTransactionDefinition())), "worker \"1\" \\");
+        Locale.setDefault(Locale.GERMANY);  //소수점이 ',' 인 로케일
+        try {
+            thread.start();
+            thread.join();
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        assertThat(exported).hasSize(1);
+        String json = exported.get(0);
+        assertThat(json).contains("\"thread\":\"worker \\\"1\\\" \\\\\"");
+        assertThat(json).containsPattern("\"totalMs\":\\d+\\.\\d{3}");
+    }
+
+    @Test
+    void controlCharactersInNameEscaped() {
+        List<String> exported = new ArrayList<>();
+        TracingTransactionManager tm = new TracingTransactionManager(new DataSourceTransactionManager(dataSource), 0, 0.0, exported::add);
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setName("line1\nline2\tend\u0001");
+
+        tm.commit(tm.getTransaction(definition));
+
+        assertThat(exported).hasSize(1);
+        String json = exported.get(0);
+        assertThat(json).doesNotContain("\n", "\t", "\u0001");
+        assertThat(json).contains("\"name\":\"line1\\nline2\\tend\\u0001\"");
+    }
+}